@@ -0,0 +1,59 @@
+package com.example.batch.demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.core.env.StandardEnvironment;
+
+import com.example.batch.demo.config.BatchConfig;
+import com.example.batch.demo.feed.FeedRegistry;
+import com.example.batch.demo.model.Student;
+import com.example.batch.demo.model.Teacher;
+
+// Per-item cost of BatchConfig's processors of the student and teacher feeds.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProcessorBenchmark {
+
+    private static final int ITEMS = 1000;
+
+    private final List<Student> students = XmlFixtures.studentItems(ITEMS);
+    private final List<Teacher> teachers = XmlFixtures.teacherItems(ITEMS);
+    private ItemProcessor<Student, Student> studentProcessor;
+    private ItemProcessor<Teacher, Teacher> teacherProcessor;
+
+    @Setup
+    public void setUp() {
+        BatchConfig config = new BatchConfig();
+        FeedRegistry feedRegistry = new FeedRegistry(new StandardEnvironment());
+        studentProcessor = config.itemProcessor(XmlFixtures.studentFeed(feedRegistry));
+        teacherProcessor = config.itemProcessor(XmlFixtures.teacherFeed(feedRegistry));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void processStudents(Blackhole blackhole) throws Exception {
+        for (Student student : students) {
+            blackhole.consume(studentProcessor.process(student));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void processTeachers(Blackhole blackhole) throws Exception {
+        for (Teacher teacher : teachers) {
+            blackhole.consume(teacherProcessor.process(teacher));
+        }
+    }
+}
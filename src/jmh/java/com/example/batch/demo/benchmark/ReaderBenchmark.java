@@ -0,0 +1,106 @@
+package com.example.batch.demo.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.xml.StaxEventItemReader;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+
+import com.example.batch.demo.model.Student;
+import com.example.batch.demo.model.Teacher;
+import com.example.batch.demo.reader.XmlCursorItemReader;
+
+// Time to read one whole file, built the same way as BatchConfig's student/teacher item readers.
+// "stax" is StaxEventItemReader + Jaxb2Marshaller, "cursor" is XmlCursorItemReader.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReaderBenchmark {
+
+    @Param({ "stax", "cursor" })
+    public String mode;
+
+    @Param({ "100", "10000" })
+    public int records;
+
+    // Extra bytes per fragment
+    @Param({ "0", "2048" })
+    public int padding;
+
+    private ItemStreamReader<Student> studentReader;
+    private ItemStreamReader<Teacher> teacherReader;
+
+    @Setup
+    public void setUp() throws Exception {
+        ByteArrayResource students = new ByteArrayResource(XmlFixtures.students(records, padding));
+        ByteArrayResource teachers = new ByteArrayResource(XmlFixtures.teachers(records, padding));
+        if ("cursor".equals(mode)) {
+            Map<String, BiConsumer<Student, String>> studentFields = new LinkedHashMap<>();
+            studentFields.put("name", Student::setName);
+            studentFields.put("age", (student, value) -> student.setAge(Integer.parseInt(value.trim())));
+            studentFields.put("grade", Student::setGrade);
+            XmlCursorItemReader<Student> cursorStudents = new XmlCursorItemReader<>("student", Student::new, studentFields);
+            cursorStudents.setResource(students);
+            studentReader = cursorStudents;
+
+            Map<String, BiConsumer<Teacher, String>> teacherFields = new LinkedHashMap<>();
+            teacherFields.put("name", Teacher::setName);
+            teacherFields.put("age", (teacher, value) -> teacher.setAge(Integer.parseInt(value.trim())));
+            teacherFields.put("subject", Teacher::setSubject);
+            teacherFields.put("experience", (teacher, value) -> teacher.setExperience(Integer.parseInt(value.trim())));
+            XmlCursorItemReader<Teacher> cursorTeachers = new XmlCursorItemReader<>("teacher", Teacher::new, teacherFields);
+            cursorTeachers.setResource(teachers);
+            teacherReader = cursorTeachers;
+        } else {
+            studentReader = staxReader(students, "student", Student.class);
+            teacherReader = staxReader(teachers, "teacher", Teacher.class);
+        }
+    }
+
+    @Benchmark
+    public void readStudents(Blackhole blackhole) throws Exception {
+        readAll(studentReader, blackhole);
+    }
+
+    @Benchmark
+    public void readTeachers(Blackhole blackhole) throws Exception {
+        readAll(teacherReader, blackhole);
+    }
+
+    private static <T> void readAll(ItemStreamReader<T> reader, Blackhole blackhole) throws Exception {
+        reader.open(new ExecutionContext());
+        try {
+            for (T item = reader.read(); item != null; item = reader.read()) {
+                blackhole.consume(item);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static <T> StaxEventItemReader<T> staxReader(ByteArrayResource resource, String fragment, Class<T> type)
+            throws Exception {
+        Jaxb2Marshaller unmarshaller = new Jaxb2Marshaller();
+        unmarshaller.setClassesToBeBound(type);
+        unmarshaller.afterPropertiesSet();
+        StaxEventItemReader<T> reader = new StaxEventItemReader<>();
+        reader.setResource(resource);
+        reader.setFragmentRootElementName(fragment);
+        reader.setUnmarshaller(unmarshaller);
+        return reader;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.batch.demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.batch.demo.DemoApplication;
+import com.example.batch.demo.config.BatchConfig;
+import com.example.batch.demo.feed.FeedRegistry;
+import com.example.batch.demo.model.Student;
+
+// Per-item cost of BatchConfig's writer of the student feed against embedded H2, for both writer modes, both load modes
+// and several commit intervals. Each invocation writes the same number of new items, one transaction per chunk,
+// like a step does.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WriterBenchmark {
+
+    private static final int ITEMS = 1000;
+
+    @Param({ "jdbc", "jpa" })
+    public String mode;
+
+    @Param({ "insert", "upsert" })
+    public String loadMode;
+
+    @Param({ "10", "100", "1000" })
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private ItemWriter<Student> writer;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private List<Student> students;
+    private long nextStudent;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:writerBenchmark",
+                        "spring.batch.job.enabled=false",
+                        "student.job.enabled=false",
+                        "teacher.job.enabled=false",
+                        "student.job.initialDelay=86400000",
+                        "teacher.job.initialDelay=86400000",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "batch.writer.mode=" + mode,
+                        "batch.load.mode=" + loadMode)
+                .run();
+        writer = context.getBean(BatchConfig.class).itemWriter(XmlFixtures.studentFeed(context.getBean(FeedRegistry.class)));
+        transactionTemplate = new TransactionTemplate(
+                context.getBean("transactionManager", PlatformTransactionManager.class));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        jdbcTemplate.update("DELETE FROM student");
+    }
+
+    // New entities with new natural keys every time, both writers assign ids to them
+    @Setup(Level.Invocation)
+    public void newStudents() {
+        students = XmlFixtures.studentItems(ITEMS, nextStudent);
+        nextStudent += ITEMS;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void writeStudents() {
+        for (int from = 0; from < ITEMS; from += chunkSize) {
+            List<Student> chunk = students.subList(from, Math.min(ITEMS, from + chunkSize));
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    writer.write(chunk);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.batch.demo.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.batch.demo.feed.FeedDefinition;
+import com.example.batch.demo.feed.FeedRegistry;
+import com.example.batch.demo.model.Student;
+import com.example.batch.demo.model.Teacher;
+
+// In-memory input for the benchmarks, shaped like the files produced by resources/utils/scripts.
+// The padding is an extra element inside every fragment, to vary the fragment size independently of the record count.
+final class XmlFixtures {
+
+    private XmlFixtures() {
+    }
+
+    static byte[] students(int records, int paddingBytes) {
+        String padding = padding(paddingBytes);
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<students>\n");
+        for (int i = 0; i < records; i++) {
+            xml.append("    <student>\n")
+                    .append("        <name>Student ").append(i).append("</name>\n")
+                    .append("        <age>").append(18 + i % 10).append("</age>\n")
+                    .append("        <grade>").append((char) ('A' + i % 5)).append("</grade>\n")
+                    .append(padding)
+                    .append("    </student>\n");
+        }
+        return xml.append("</students>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] teachers(int records, int paddingBytes) {
+        String padding = padding(paddingBytes);
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<teachers>\n");
+        for (int i = 0; i < records; i++) {
+            xml.append("    <teacher>\n")
+                    .append("        <name>Teacher ").append(i).append("</name>\n")
+                    .append("        <age>").append(30 + i % 30).append("</age>\n")
+                    .append("        <subject>Subject ").append(i % 12).append("</subject>\n")
+                    .append("        <experience>").append(i % 25).append("</experience>\n")
+                    .append(padding)
+                    .append("    </teacher>\n");
+        }
+        return xml.append("</teachers>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static List<Student> studentItems(int count) {
+        return studentItems(count, 0);
+    }
+
+    // Names start at firstId, so batches with different offsets do not share natural keys
+    static List<Student> studentItems(int count, long firstId) {
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Student student = new Student();
+            student.setName("Student " + (firstId + i));
+            student.setAge(18 + i % 10);
+            student.setGrade(String.valueOf((char) ('A' + i % 5)));
+            students.add(student);
+        }
+        return students;
+    }
+
+    static List<Teacher> teacherItems(int count) {
+        List<Teacher> teachers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Teacher teacher = new Teacher();
+            teacher.setName("Teacher " + i);
+            teacher.setAge(30 + i % 30);
+            teacher.setSubject("Subject " + i % 12);
+            teacher.setExperience(i % 25);
+            teachers.add(teacher);
+        }
+        return teachers;
+    }
+
+    // Unknown elements are skipped by both reader modes
+    // The declared feeds, typed for the benchmarks that build BatchConfig's processors and writers from them
+    @SuppressWarnings("unchecked")
+    static FeedDefinition<Student> studentFeed(FeedRegistry feedRegistry) {
+        return (FeedDefinition<Student>) feedRegistry.get("student");
+    }
+
+    @SuppressWarnings("unchecked")
+    static FeedDefinition<Teacher> teacherFeed(FeedRegistry feedRegistry) {
+        return (FeedDefinition<Teacher>) feedRegistry.get("teacher");
+    }
+
+    private static String padding(int bytes) {
+        if (bytes <= 0) {
+            return "";
+        }
+        StringBuilder padding = new StringBuilder("        <remarks>");
+        for (int i = 0; i < bytes; i++) {
+            padding.append((char) ('a' + i % 26));
+        }
+        return padding.append("</remarks>\n").toString();
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.batch.demo.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.batch.demo.DemoApplication;
+import com.example.batch.demo.load.WorkloadGenerator.Feed;
+import com.example.batch.demo.load.WorkloadGenerator.GeneratedFile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// End-to-end load run: generates a workload, starts the application against an in-memory H2 database,
+// drops the files into the input directories at the configured arrival rate and waits until every file
+// has been archived (or progress stops). The report (records/sec, arrival-to-archive latency percentiles,
+// peak heap, GC) is written as JSON so runs can be compared across builds. With --malformed above 0 the
+// application runs fault tolerant with the cursor reader, and the report counts the quarantined records.
+//
+//   ./mvnw -Pload test-compile exec:exec -Dload.args="--files=500 --records=2000 --skew=1.2 --malformed=0.001"
+//
+// Options: --files, --records (mean per file), --skew, --malformed (ratio), --feeds (student,teacher),
+// --arrival-rate (files/sec, 0 = all at once), --seed, --timeout-s, --idle-timeout-s, --work-dir, --output,
+// --label. Any other --key=value is passed to the application, e.g. --batch.writer.mode=jpa.
+public class LoadHarness {
+
+    private static final long POLL_MILLIS = 20;
+    private static final double[] PERCENTILES = { 50, 90, 95, 99, 100 };
+
+    private final Map<String, String> options = new LinkedHashMap<>();
+    private final List<String> applicationArgs = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false"); // One context, in this JVM and classloader
+        new LoadHarness(args).run();
+    }
+
+    LoadHarness(String[] args) {
+        options.put("files", "200");
+        options.put("records", "500");
+        options.put("skew", "1.0");
+        options.put("malformed", "0");
+        options.put("feeds", "student,teacher");
+        options.put("arrival-rate", "0");
+        options.put("seed", "42");
+        options.put("timeout-s", "1800");
+        options.put("idle-timeout-s", "60");
+        options.put("work-dir", "target/load");
+        options.put("output", "target/load-report.json");
+        options.put("label", "");
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (options.containsKey(option[0]) && option.length == 2) {
+                options.put(option[0], option[1]);
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+    }
+
+    void run() throws Exception {
+        Path workDirectory = Paths.get(options.get("work-dir")).toAbsolutePath();
+        deleteRecursively(workDirectory);
+
+        List<Feed> feeds = Arrays.stream(options.get("feeds").split(","))
+                .map(feed -> Feed.valueOf(feed.trim().toUpperCase()))
+                .collect(Collectors.toList());
+        WorkloadGenerator generator = new WorkloadGenerator(Long.parseLong(options.get("seed")));
+        List<GeneratedFile> files = new ArrayList<>();
+        for (Feed feed : feeds) {
+            files.addAll(generator.generate(feed, workDirectory.resolve("staging").resolve(feed.root),
+                    intOption("files"), intOption("records"), doubleOption("skew"), doubleOption("malformed")));
+            Files.createDirectories(workDirectory.resolve(feed.root));
+        }
+        files.sort(Comparator.comparing(file -> file.path.getFileName().toString().hashCode())); // Interleave feeds
+        System.out.println("Generated " + files.size() + " files, "
+                + files.stream().mapToLong(file -> file.records).sum() + " records.");
+
+        PrintStream console = System.out;
+        PrintStream consoleErr = System.err;
+        Path applicationLog = workDirectory.resolve("application.log");
+        try (PrintStream log = new PrintStream(Files.newOutputStream(applicationLog), false)) {
+            System.setOut(log); // Keeps the application's output apart from the report
+            System.setErr(log);
+            ConfigurableApplicationContext context = start(workDirectory);
+            Map<String, Object> report;
+            try {
+                report = measure(context, workDirectory, files);
+            } finally {
+                context.close();
+                System.setOut(console);
+                System.setErr(consoleErr);
+            }
+            Path output = Paths.get(options.get("output"));
+            if (output.getParent() != null) {
+                Files.createDirectories(output.getParent());
+            }
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+            console.println(new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(report.get("results")));
+            console.println("Report written to " + output.toAbsolutePath() + ", application output in " + applicationLog);
+        }
+    }
+
+    private ConfigurableApplicationContext start(Path workDirectory) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:load;DB_CLOSE_DELAY=-1");
+        properties.put("spring.batch.job.enabled", "false");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("logging.level.org.hibernate.SQL", "WARN");
+        properties.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        properties.put("student.job.directory", workDirectory.resolve("students").toUri() + "*.xml");
+        properties.put("teacher.job.directory", workDirectory.resolve("teachers").toUri() + "*.xml");
+        properties.put("batch.trigger.mode", "watch");
+        properties.put("batch.trigger.settle-ms", "100");
+        properties.put("batch.trigger.debounce-ms", "50");
+        if (doubleOption("malformed") > 0) {
+            // Without fault tolerance the first malformed record fails its file, which is then never archived
+            properties.put("batch.reader.mode", "cursor");
+            properties.put("batch.fault-tolerance.enabled", "true");
+        }
+        // Passed as command line arguments so they override application.properties; explicit arguments win
+        List<String> args = new ArrayList<>(applicationArgs);
+        properties.forEach((key, value) -> {
+            if (applicationArgs.stream().noneMatch(arg -> arg.startsWith("--" + key + "="))) {
+                args.add("--" + key + "=" + value);
+            }
+        });
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    private Map<String, Object> measure(ConfigurableApplicationContext context, Path workDirectory,
+                                        List<GeneratedFile> files) throws Exception {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        Map<String, long[]> gcBefore = gcTotals();
+
+        Map<GeneratedFile, Long> arrivals = new HashMap<>();
+        Map<GeneratedFile, Long> archived = new HashMap<>();
+        double arrivalRate = doubleOption("arrival-rate");
+        long timeoutMillis = longOption("timeout-s") * 1000;
+        long idleTimeoutMillis = longOption("idle-timeout-s") * 1000;
+        long start = System.currentTimeMillis();
+        long lastProgress = start;
+        int next = 0;
+        while (archived.size() < files.size()) {
+            long now = System.currentTimeMillis();
+            // Arrivals: all at once, or one every 1/rate seconds
+            while (next < files.size() && (arrivalRate <= 0 || (now - start) * arrivalRate / 1000 >= next)) {
+                GeneratedFile file = files.get(next++);
+                Path target = workDirectory.resolve(file.feed.root).resolve(file.path.getFileName());
+                arrivals.put(file, System.currentTimeMillis());
+                Files.move(file.path, target, StandardCopyOption.ATOMIC_MOVE);
+                lastProgress = now;
+            }
+            for (GeneratedFile file : arrivals.keySet()) {
+                if (!archived.containsKey(file) && Files.exists(workDirectory.resolve(file.feed.root)
+                        .resolve("done").resolve(file.path.getFileName()))) {
+                    archived.put(file, now);
+                    lastProgress = now;
+                }
+            }
+            if (now - start > timeoutMillis || now - lastProgress > idleTimeoutMillis) {
+                break;
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+        long end = archived.values().stream().mapToLong(Long::longValue).max().orElse(System.currentTimeMillis());
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        long rows = 0;
+        long quarantined = 0;
+        Map<String, Object> perFeed = new LinkedHashMap<>();
+        for (Feed feed : Arrays.stream(Feed.values()).filter(f -> files.stream().anyMatch(file -> file.feed == f))
+                .collect(Collectors.toList())) {
+            long feedRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + feed.element, Long.class);
+            rows += feedRows;
+            long feedQuarantined = quarantinedRecords(workDirectory.resolve(feed.root).resolve("quarantine"));
+            quarantined += feedQuarantined;
+            List<GeneratedFile> feedFiles = files.stream().filter(file -> file.feed == feed).collect(Collectors.toList());
+            Map<String, Object> feedResult = new LinkedHashMap<>();
+            feedResult.put("files", feedFiles.size());
+            feedResult.put("filesArchived", feedFiles.stream().filter(archived::containsKey).count());
+            feedResult.put("records", feedFiles.stream().mapToLong(file -> file.records).sum());
+            feedResult.put("malformedRecords", feedFiles.stream().mapToLong(file -> file.malformedRecords).sum());
+            feedResult.put("rowsLoaded", feedRows);
+            feedResult.put("recordsQuarantined", feedQuarantined);
+            feedResult.put("latencyMillis", percentiles(feedFiles, arrivals, archived));
+            perFeed.put(feed.element, feedResult);
+        }
+
+        double seconds = Math.max(1, end - start) / 1000.0;
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("elapsedSeconds", seconds);
+        results.put("files", files.size());
+        results.put("filesArchived", archived.size());
+        results.put("rowsLoaded", rows);
+        results.put("recordsQuarantined", quarantined);
+        results.put("recordsPerSecond", rows / seconds);
+        results.put("latencyMillis", percentiles(files, arrivals, archived));
+        results.put("peakHeapBytes", heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum());
+        results.put("gc", gcDelta(gcBefore, gcTotals()));
+        results.put("feeds", perFeed);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", options.get("label"));
+        report.put("timestamp", Instant.now().toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        report.put("options", options);
+        report.put("applicationArgs", applicationArgs);
+        report.put("results", results);
+        return report;
+    }
+
+    // Nearest-rank percentiles of arrival-to-archive latency over the archived files
+    private static Map<String, Long> percentiles(List<GeneratedFile> files, Map<GeneratedFile, Long> arrivals,
+                                                 Map<GeneratedFile, Long> archived) {
+        long[] latencies = files.stream()
+                .filter(archived::containsKey)
+                .mapToLong(file -> archived.get(file) - arrivals.get(file))
+                .sorted()
+                .toArray();
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            String name = percentile == 100 ? "max" : "p" + (int) percentile;
+            result.put(name, latencies.length == 0 ? null
+                    : latencies[Math.max(0, (int) Math.ceil(percentile / 100 * latencies.length) - 1)]);
+        }
+        return result;
+    }
+
+    // One line per rejected record in the feed's quarantine output
+    private static long quarantinedRecords(Path quarantineDirectory) throws IOException {
+        if (!Files.isDirectory(quarantineDirectory)) {
+            return 0;
+        }
+        long records = 0;
+        try (Stream<Path> paths = Files.list(quarantineDirectory)) {
+            for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                try (Stream<String> lines = Files.lines(path)) {
+                    records += lines.count();
+                }
+            }
+        }
+        return records;
+    }
+
+    private static Map<String, long[]> gcTotals() {
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals.put(gc.getName(), new long[] { gc.getCollectionCount(), gc.getCollectionTime() });
+        }
+        return totals;
+    }
+
+    private static Map<String, Object> gcDelta(Map<String, long[]> before, Map<String, long[]> after) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        long count = 0;
+        long millis = 0;
+        for (Map.Entry<String, long[]> collector : after.entrySet()) {
+            long[] base = before.getOrDefault(collector.getKey(), new long[2]);
+            long collections = collector.getValue()[0] - base[0];
+            long time = collector.getValue()[1] - base[1];
+            count += collections;
+            millis += time;
+            Map<String, Long> collectorDelta = new LinkedHashMap<>();
+            collectorDelta.put("collections", collections);
+            collectorDelta.put("timeMillis", time);
+            delta.put(collector.getKey(), collectorDelta);
+        }
+        delta.put("collections", count);
+        delta.put("timeMillis", millis);
+        return delta;
+    }
+
+    private int intOption(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private long longOption(String name) {
+        return Long.parseLong(options.get(name));
+    }
+
+    private double doubleOption(String name) {
+        return Double.parseDouble(options.get(name));
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+}
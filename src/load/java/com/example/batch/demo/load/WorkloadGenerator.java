@@ -0,0 +1,110 @@
+package com.example.batch.demo.load;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Writes a synthetic workload for one feed into a staging directory. File sizes follow a Zipf-like
+// distribution (skew 0 = every file has the same number of records), and a share of the records is
+// malformed: a non-numeric age, which the readers cannot map.
+class WorkloadGenerator {
+
+    private final Random random;
+
+    WorkloadGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    List<GeneratedFile> generate(Feed feed, Path stagingDirectory, int fileCount, int recordsPerFile, double skew,
+                                 double malformedRatio) throws IOException {
+        Files.createDirectories(stagingDirectory);
+        int[] sizes = fileSizes(fileCount, recordsPerFile, skew);
+        List<GeneratedFile> files = new ArrayList<>();
+        int recordId = 0;
+        for (int i = 0; i < fileCount; i++) {
+            Path file = stagingDirectory.resolve(String.format("%s_%05d.xml", feed.element, i));
+            int malformed = 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<" + feed.root + ">\n");
+                for (int r = 0; r < sizes[i]; r++, recordId++) {
+                    boolean broken = random.nextDouble() < malformedRatio;
+                    if (broken) {
+                        malformed++;
+                    }
+                    writer.write(feed == Feed.STUDENT ? student(recordId, broken) : teacher(recordId, broken));
+                }
+                writer.write("</" + feed.root + ">\n");
+            }
+            files.add(new GeneratedFile(feed, file, sizes[i], malformed));
+        }
+        Collections.shuffle(files, random); // Arrival order is independent of file size
+        return files;
+    }
+
+    // Total records stay at fileCount * recordsPerFile, spread by weight 1 / (rank + 1)^skew
+    private static int[] fileSizes(int fileCount, int recordsPerFile, double skew) {
+        double[] weights = new double[fileCount];
+        double totalWeight = 0;
+        for (int i = 0; i < fileCount; i++) {
+            weights[i] = 1 / Math.pow(i + 1, skew);
+            totalWeight += weights[i];
+        }
+        long totalRecords = (long) fileCount * recordsPerFile;
+        int[] sizes = new int[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            sizes[i] = (int) Math.max(1, Math.round(totalRecords * weights[i] / totalWeight));
+        }
+        return sizes;
+    }
+
+    private String student(int id, boolean malformed) {
+        return "    <student>\n"
+                + "        <name>Student " + id + "</name>\n"
+                + "        <age>" + (malformed ? "n/a" : String.valueOf(15 + random.nextInt(12))) + "</age>\n"
+                + "        <grade>" + (char) ('A' + random.nextInt(5)) + "</grade>\n"
+                + "    </student>\n";
+    }
+
+    private String teacher(int id, boolean malformed) {
+        return "    <teacher>\n"
+                + "        <name>Teacher " + id + "</name>\n"
+                + "        <age>" + (malformed ? "n/a" : String.valueOf(25 + random.nextInt(40))) + "</age>\n"
+                + "        <subject>Subject " + random.nextInt(20) + "</subject>\n"
+                + "        <experience>" + random.nextInt(35) + "</experience>\n"
+                + "    </teacher>\n";
+    }
+
+    enum Feed {
+        STUDENT("student", "students"),
+        TEACHER("teacher", "teachers");
+
+        final String element;
+        final String root;
+
+        Feed(String element, String root) {
+            this.element = element;
+            this.root = root;
+        }
+    }
+
+    static class GeneratedFile {
+
+        final Feed feed;
+        final Path path;
+        final int records;
+        final int malformedRecords;
+
+        GeneratedFile(Feed feed, Path path, int records, int malformedRecords) {
+            this.feed = feed;
+            this.path = path;
+            this.records = records;
+            this.malformedRecords = malformedRecords;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.batch.demo.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+
+import com.example.batch.demo.file.FileLifecycleManager;
+
+// Feeds a worker step into the AuditLog: sampled "processed"/"written" item events, and one summary per file
+// (items processed, filtered and written, first and last record written, duration) when its partition ends.
+public class AuditListener implements StepExecutionListener, ItemProcessListener<Object, Object>,
+        ItemWriteListener<Object> {
+
+    private final AuditLog auditLog;
+
+    // A partition runs its step and all of its listener callbacks on one thread
+    private final ThreadLocal<FileSummary> file = new ThreadLocal<>();
+
+    public AuditListener(AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        FileSummary summary = new FileSummary();
+        summary.jobName = stepExecution.getJobExecution().getJobInstance().getJobName();
+        summary.fileName = stepExecution.getExecutionContext().getString(FileLifecycleManager.FILE_NAME_KEY, "<none>");
+        if (stepExecution.getExecutionContext().containsKey(FileLifecycleManager.FILE_RANGE_INDEX_KEY)) {
+            summary.fileName += "#" + stepExecution.getExecutionContext().getInt(FileLifecycleManager.FILE_RANGE_INDEX_KEY);
+        }
+        summary.startMillis = System.currentTimeMillis();
+        file.set(summary);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        FileSummary summary = file.get();
+        file.remove();
+        if (summary != null) {
+            auditLog.publish(String.format("%s %s: %s, %d processed, %d filtered, %d written, %d quarantined in %d ms, "
+                    + "first=%s, last=%s",
+                    summary.jobName, summary.fileName, stepExecution.getStatus(), summary.processed, summary.filtered,
+                    summary.written - stepExecution.getWriteSkipCount(), stepExecution.getSkipCount(),
+                    System.currentTimeMillis() - summary.startMillis, summary.first, summary.last));
+        }
+        return null;
+    }
+
+    @Override
+    public void beforeProcess(Object item) {
+    }
+
+    @Override
+    public void afterProcess(Object item, Object result) {
+        FileSummary summary = file.get();
+        if (summary == null) {
+            return;
+        }
+        summary.processed++;
+        // In async processor mode the result is a Future, filtered items are counted once it is written
+        if (result == null) {
+            summary.filtered++;
+        }
+        if (auditLog.sample(summary.jobName)) {
+            auditLog.publish(summary.jobName + " " + summary.fileName + ": processed " + item);
+        }
+    }
+
+    @Override
+    public void onProcessError(Object item, Exception e) {
+        FileSummary summary = file.get();
+        if (summary != null) {
+            auditLog.publish(summary.jobName + " " + summary.fileName + ": failed to process " + item + ": " + e);
+        }
+    }
+
+    @Override
+    public void beforeWrite(List<? extends Object> items) {
+    }
+
+    @Override
+    public void afterWrite(List<? extends Object> items) {
+        FileSummary summary = file.get();
+        if (summary == null || items.isEmpty()) {
+            return;
+        }
+        List<Object> written = new ArrayList<>(items.size());
+        for (Object item : items) {
+            Object resolved = resolve(item);
+            if (resolved != null) {
+                written.add(resolved);
+            }
+        }
+        summary.filtered += items.size() - written.size();
+        summary.written += written.size();
+        if (written.isEmpty()) {
+            return;
+        }
+        if (summary.first == null) {
+            summary.first = written.get(0);
+        }
+        summary.last = written.get(written.size() - 1);
+        if (auditLog.sample(summary.jobName)) {
+            auditLog.publish(summary.jobName + " " + summary.fileName + ": wrote " + written.size()
+                    + " items, last " + summary.last);
+        }
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<? extends Object> items) {
+    }
+
+    // In async processor mode the written items are the futures of the processed items, all complete by now;
+    // a filtered item's future holds null
+    private static Object resolve(Object item) {
+        if (item instanceof Future && ((Future<?>) item).isDone()) {
+            try {
+                return ((Future<?>) item).get();
+            } catch (Exception e) {
+                return item;
+            }
+        }
+        return item;
+    }
+
+    private static class FileSummary {
+        private String jobName;
+        private String fileName;
+        private long startMillis;
+        private long processed;
+        private long filtered;
+        private long written;
+        private Object first;
+        private Object last;
+    }
+}
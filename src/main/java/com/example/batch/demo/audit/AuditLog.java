@@ -0,0 +1,118 @@
+package com.example.batch.demo.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Audit channel for item-level events. Producers only offer to a bounded buffer, so a chunk thread never
+// blocks on logging; a background thread drains the buffer into the "audit" logger. Item events are
+// sampled per job (batch.audit.sample-rate, overridable with batch.audit.sample-rate.<jobName>), every
+// file gets one summary line, and events that do not fit into the buffer are dropped and counted.
+@Component
+public class AuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger("audit");
+    private static final int DRAIN_BATCH = 512;
+
+    private final Environment environment;
+    private final double defaultSampleRate;
+    private final Map<String, Double> sampleRates = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> buffer;
+    private final Counter published;
+    private final Counter dropped;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    @Autowired
+    public AuditLog(Environment environment, MeterRegistry meterRegistry,
+                    @Value("${batch.audit.sample-rate:0.001}") double defaultSampleRate,
+                    @Value("${batch.audit.buffer-size:8192}") int bufferSize) {
+        this.environment = environment;
+        this.defaultSampleRate = defaultSampleRate;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.published = Counter.builder("batch.audit.events")
+                .description("Audit events written to the audit log")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("batch.audit.dropped")
+                .description("Audit events dropped because the buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("batch.audit.buffered", buffer, BlockingQueue::size)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+        drainer = new Thread(this::drain, "audit-writer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    // Whether to record an item event of the given job; decided per event, without locking
+    public boolean sample(String jobName) {
+        double rate = sampleRates.computeIfAbsent(jobName, name ->
+                environment.getProperty("batch.audit.sample-rate." + name, Double.class, defaultSampleRate));
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    // Never blocks: a full buffer drops the event
+    public void publish(String event) {
+        if (!buffer.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    public long getDroppedCount() {
+        return (long) dropped.count();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void drain() {
+        List<String> batch = new ArrayList<>(DRAIN_BATCH);
+        long reportedDrops = 0;
+        while (running || !buffer.isEmpty()) {
+            try {
+                String first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    buffer.drainTo(batch, DRAIN_BATCH - 1);
+                    for (String event : batch) {
+                        log.info(event);
+                    }
+                    published.increment(batch.size());
+                    batch.clear();
+                }
+                long drops = getDroppedCount();
+                if (drops > reportedDrops) {
+                    log.warn("{} audit events dropped so far, buffer full", drops);
+                    reportedDrops = drops;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Error writing audit events: " + e.getMessage());
+                batch.clear();
+            }
+        }
+    }
+}
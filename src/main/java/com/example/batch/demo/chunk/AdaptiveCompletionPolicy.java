@@ -0,0 +1,98 @@
+package com.example.batch.demo.chunk;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+
+// Commit interval that follows the measured write + commit latency of the previous chunks of the same partition.
+// Each chunk is sized when it starts; fast commits grow the next chunk (at most x2),
+// slow commits shrink it (at most /2) and failed chunks halve it.
+// One policy serves all partitions of a worker step, which run concurrently, so every partition (step execution)
+// starts from the initial size and keeps its own; the policy must be registered as a listener of the step,
+// which drops a partition's size once it finished.
+public class AdaptiveCompletionPolicy extends CompletionPolicySupport implements StepExecutionListener {
+
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final long targetLatencyNanos;
+    private final int initialChunkSize;
+    private final Map<Long, AtomicInteger> chunkSizes = new ConcurrentHashMap<>();
+
+    public AdaptiveCompletionPolicy(int initialChunkSize, int minChunkSize, int maxChunkSize,
+                                    long targetLatencyMillis) {
+        this.minChunkSize = Math.max(1, minChunkSize);
+        this.maxChunkSize = Math.max(this.minChunkSize, maxChunkSize);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.initialChunkSize = clamp(initialChunkSize);
+    }
+
+    public int getChunkSize(StepExecution partition) {
+        return chunkSize(partition).get();
+    }
+
+    // Called after a chunk of the partition committed; latency covers the write and the commit
+    public void recordCommit(StepExecution partition, long latencyNanos) {
+        double factor = (double) targetLatencyNanos / Math.max(1, latencyNanos);
+        double boundedFactor = Math.max(0.5, Math.min(2.0, factor));
+        resize(partition, current -> (int) Math.round(current * boundedFactor));
+    }
+
+    // Called when a chunk of the partition rolled back
+    public void recordFailure(StepExecution partition) {
+        resize(partition, current -> current / 2);
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        chunkSizes.remove(stepExecution.getId());
+        return null;
+    }
+
+    // Runs on the partition's thread, within its step
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        return new SizedChunkContext(parent, getChunkSize(StepSynchronizationManager.getContext().getStepExecution()));
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        SizedChunkContext chunkContext = (SizedChunkContext) context;
+        return chunkContext.getStartedCount() >= chunkContext.limit;
+    }
+
+    private AtomicInteger chunkSize(StepExecution partition) {
+        return chunkSizes.computeIfAbsent(partition.getId(), id -> new AtomicInteger(initialChunkSize));
+    }
+
+    private void resize(StepExecution partition, IntUnaryOperator resizer) {
+        chunkSize(partition).updateAndGet(current -> clamp(resizer.applyAsInt(current)));
+    }
+
+    private int clamp(int size) {
+        return Math.max(minChunkSize, Math.min(maxChunkSize, size));
+    }
+
+    private static class SizedChunkContext extends RepeatContextSupport {
+
+        private final int limit;
+
+        SizedChunkContext(RepeatContext parent, int limit) {
+            super(parent);
+            this.limit = limit;
+        }
+    }
+}
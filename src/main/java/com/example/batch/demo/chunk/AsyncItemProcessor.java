@@ -0,0 +1,43 @@
+package com.example.batch.demo.chunk;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.core.task.TaskExecutor;
+
+// Hands each item to a worker pool and returns its result as a Future; AsyncItemWriter waits for the futures
+// in item order at write time, so the chunk still commits (or rolls back) as one unit. The step context is
+// registered on the worker thread, so step-scoped beans keep working inside the delegate.
+public class AsyncItemProcessor<I, O> implements ItemProcessor<I, Future<O>> {
+
+    private final ItemProcessor<I, O> delegate;
+    private final TaskExecutor taskExecutor;
+
+    public AsyncItemProcessor(ItemProcessor<I, O> delegate, TaskExecutor taskExecutor) {
+        this.delegate = delegate;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @Override
+    public Future<O> process(I item) {
+        StepContext context = StepSynchronizationManager.getContext();
+        StepExecution stepExecution = context == null ? null : context.getStepExecution();
+        FutureTask<O> task = new FutureTask<>(() -> {
+            if (stepExecution == null) {
+                return delegate.process(item);
+            }
+            StepSynchronizationManager.register(stepExecution);
+            try {
+                return delegate.process(item);
+            } finally {
+                StepSynchronizationManager.close();
+            }
+        });
+        taskExecutor.execute(task); // Runs on the chunk thread instead when the pool and its queue are full
+        return task;
+    }
+}
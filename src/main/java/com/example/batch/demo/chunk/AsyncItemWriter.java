@@ -0,0 +1,72 @@
+package com.example.batch.demo.chunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.item.ItemWriter;
+
+import com.example.batch.demo.metrics.BatchMetrics;
+
+// Counterpart of AsyncItemProcessor: collects the chunk's results in item order, drops filtered (null) items
+// and passes the rest to the delegate in the chunk's transaction. A processing failure is rethrown here,
+// so it rolls the chunk back exactly as an inline processor failure would. Registered as the step's first write
+// listener, it waits for the process stage in beforeWrite, so the wait is not measured as write + commit latency
+// by the listeners after it.
+public class AsyncItemWriter<T> implements ItemWriter<Future<T>>, ItemWriteListener<Future<T>> {
+
+    private final ItemWriter<T> delegate;
+    private final BatchMetrics batchMetrics;
+
+    public AsyncItemWriter(ItemWriter<T> delegate, BatchMetrics batchMetrics) {
+        this.delegate = delegate;
+        this.batchMetrics = batchMetrics;
+    }
+
+    // Waits until every item of the chunk is processed; failures are left to write
+    @Override
+    public void beforeWrite(List<? extends Future<T>> items) {
+        long start = System.nanoTime();
+        for (Future<T> item : items) {
+            try {
+                item.get();
+            } catch (ExecutionException e) {
+                // Rethrown by write, in the chunk's transaction
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        // Time the chunk thread waited for the process stage; near zero means processing keeps up
+        batchMetrics.recordProcessWait(System.nanoTime() - start);
+    }
+
+    @Override
+    public void afterWrite(List<? extends Future<T>> items) {
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<? extends Future<T>> items) {
+    }
+
+    @Override
+    public void write(List<? extends Future<T>> items) throws Exception {
+        List<T> results = new ArrayList<>(items.size());
+        for (Future<T> item : items) {
+            try {
+                T result = item.get();
+                if (result != null) {
+                    results.add(result);
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+        if (!results.isEmpty()) {
+            delegate.write(results);
+        }
+    }
+}
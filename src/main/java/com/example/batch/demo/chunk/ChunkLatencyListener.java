@@ -0,0 +1,94 @@
+package com.example.batch.demo.chunk;
+
+import java.util.List;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.RepeatListener;
+import org.springframework.batch.repeat.RepeatStatus;
+
+// Measures each chunk from the start of its write until after its commit and reports the latency
+// to the step's AdaptiveCompletionPolicy, for the partition that wrote the chunk, and to the shared
+// WriteRateLimiter. As a listener of the step's repeat operations it also takes the next chunk's rows from the
+// rate limiter before the chunk's transaction starts, so a throttled chunk waits without holding a connection and
+// the wait is not part of its latency.
+public class ChunkLatencyListener implements ChunkListener, ItemWriteListener<Object>, RepeatListener {
+
+    private final AdaptiveCompletionPolicy completionPolicy;
+    private final WriteRateLimiter rateLimiter;
+
+    // Partitions run on several threads, so the in-flight chunk is tracked per thread
+    private final ThreadLocal<long[]> writeStart = new ThreadLocal<>();
+
+    public ChunkLatencyListener(AdaptiveCompletionPolicy completionPolicy, WriteRateLimiter rateLimiter) {
+        this.completionPolicy = completionPolicy;
+        this.rateLimiter = rateLimiter;
+    }
+
+    // Before each chunk transaction; the chunk may end up smaller than planned (at the end of the file)
+    @Override
+    public void before(RepeatContext context) {
+        rateLimiter.acquire(completionPolicy.getChunkSize(partition()));
+    }
+
+    @Override
+    public void after(RepeatContext context, RepeatStatus result) {
+    }
+
+    @Override
+    public void open(RepeatContext context) {
+    }
+
+    @Override
+    public void onError(RepeatContext context, Throwable e) {
+    }
+
+    @Override
+    public void close(RepeatContext context) {
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        writeStart.remove();
+    }
+
+    @Override
+    public void beforeWrite(List<? extends Object> items) {
+        writeStart.set(new long[] { System.nanoTime(), items.size() });
+    }
+
+    @Override
+    public void afterWrite(List<? extends Object> items) {
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<? extends Object> items) {
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        long[] start = writeStart.get();
+        writeStart.remove();
+        if (start == null) {
+            return; // Nothing was written (e.g. the last, empty chunk)
+        }
+        long latencyNanos = System.nanoTime() - start[0];
+        completionPolicy.recordCommit(partition(), latencyNanos);
+        rateLimiter.recordCommit((int) start[1], latencyNanos);
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        writeStart.remove();
+        completionPolicy.recordFailure(partition());
+    }
+
+    // Every callback runs on the partition's thread, within its step
+    private static StepExecution partition() {
+        return StepSynchronizationManager.getContext().getStepExecution();
+    }
+}
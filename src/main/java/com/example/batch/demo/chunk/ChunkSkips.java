@@ -0,0 +1,70 @@
+package com.example.batch.demo.chunk;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.step.skip.SkipLimitExceededException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Read and write skips of the chunk being processed. They are added to the partition's StepExecution only once
+// the chunk transaction commits, so a chunk that rolls back and is processed again does not count its records
+// twice. The skip limit covers the partition's committed skips and the chunk's pending ones. Outside a
+// transaction a skip counts at once.
+public final class ChunkSkips implements TransactionSynchronization {
+
+    private final StepExecution partition;
+    private final boolean pending;
+    private int readSkips;
+    private int writeSkips;
+
+    private ChunkSkips(StepExecution partition, boolean pending) {
+        this.partition = partition;
+        this.pending = pending;
+    }
+
+    // Throws SkipLimitExceededException instead once the partition reached the skip limit
+    public static void readSkip(StepExecution partition, int skipLimit, Throwable cause) {
+        ChunkSkips skips = current(partition, skipLimit, cause);
+        skips.readSkips++;
+        if (!skips.pending) {
+            skips.add();
+        }
+    }
+
+    public static void writeSkip(StepExecution partition, int skipLimit, Throwable cause) {
+        ChunkSkips skips = current(partition, skipLimit, cause);
+        skips.writeSkips++;
+        if (!skips.pending) {
+            skips.add();
+        }
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResource(ChunkSkips.class);
+        if (status == STATUS_COMMITTED) {
+            add();
+        }
+    }
+
+    private static ChunkSkips current(StepExecution partition, int skipLimit, Throwable cause) {
+        ChunkSkips skips = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            skips = (ChunkSkips) TransactionSynchronizationManager.getResource(ChunkSkips.class);
+            if (skips == null) {
+                skips = new ChunkSkips(partition, true);
+                TransactionSynchronizationManager.bindResource(ChunkSkips.class, skips);
+                TransactionSynchronizationManager.registerSynchronization(skips);
+            }
+        }
+        int pending = skips != null ? skips.readSkips + skips.writeSkips : 0;
+        if (partition.getSkipCount() + pending >= skipLimit) {
+            throw new SkipLimitExceededException(skipLimit, cause);
+        }
+        return skips != null ? skips : new ChunkSkips(partition, false);
+    }
+
+    private void add() {
+        partition.setReadSkipCount(partition.getReadSkipCount() + readSkips);
+        partition.setWriteSkipCount(partition.getWriteSkipCount() + writeSkips);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.batch.demo.chunk;
+
+import java.util.concurrent.TimeUnit;
+
+// Token bucket that paces database writes in rows/sec, shared by every writer thread.
+// The rate is either fixed (rowsPerSecond > 0) or unlimited (0). With maxLatencyMillis > 0 the bucket
+// also backs off on its own: a commit slower than the limit halves the effective rate, and fast
+// commits let it recover towards the configured rate.
+public class WriteRateLimiter {
+
+    // Above this effective rate an unlimited limiter stops throttling again
+    private static final double UNTHROTTLED_RATE = 100_000;
+
+    private final double configuredRate;
+    private final long maxLatencyNanos;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public WriteRateLimiter(double rowsPerSecond, long maxLatencyMillis) {
+        this.configuredRate = rowsPerSecond > 0 ? rowsPerSecond : Double.POSITIVE_INFINITY;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+        this.rate = configuredRate;
+        this.tokens = Double.isInfinite(rate) ? 0 : rate;
+    }
+
+    // Blocks until the given number of rows may be written
+    public void acquire(int rows) {
+        long waitNanos = reserve(rows);
+        if (waitNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Write throttling interrupted", e);
+        }
+    }
+
+    // Feeds back the write + commit latency of a chunk of the given size
+    public synchronized void recordCommit(int rows, long latencyNanos) {
+        if (maxLatencyNanos <= 0 || rows == 0) {
+            return;
+        }
+        if (latencyNanos > maxLatencyNanos) {
+            double observedRate = rows * (double) TimeUnit.SECONDS.toNanos(1) / latencyNanos;
+            double reduced = Math.max(1, Math.min(rate, observedRate) / 2);
+            if (reduced < rate) {
+                refill();
+                rate = reduced;
+                tokens = Math.min(tokens, rate);
+            }
+        } else if (latencyNanos < maxLatencyNanos / 2 && rate < configuredRate) {
+            refill();
+            rate = rate * 2 >= Math.min(configuredRate, UNTHROTTLED_RATE) ? configuredRate : rate * 2;
+        }
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    // Takes the rows out of the bucket (possibly going into debt) and returns how long the caller must wait
+    private synchronized long reserve(int rows) {
+        if (Double.isInfinite(rate)) {
+            return 0;
+        }
+        refill();
+        double missing = rows - tokens;
+        tokens -= rows;
+        return missing <= 0 ? 0 : (long) (missing / rate * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        if (!Double.isInfinite(rate)) {
+            // At most one second worth of rows can be saved up as burst
+            tokens = Math.min(rate, tokens + (now - lastRefillNanos) * rate / TimeUnit.SECONDS.toNanos(1));
+        }
+        lastRefillNanos = now;
+    }
+}
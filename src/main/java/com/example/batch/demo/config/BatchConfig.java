@@ -1,40 +1,89 @@
 package com.example.batch.demo.config;
 
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import javax.sql.DataSource;
+import javax.xml.bind.ValidationEvent;
+
+import org.springframework.batch.core.ChunkListener;
 import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
-import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.core.listener.StepExecutionListenerSupport;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.file.MultiResourceItemReader;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
 import org.springframework.batch.item.xml.StaxEventItemReader;
 import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.repeat.support.RepeatTemplate;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.oxm.jaxb.Jaxb2Marshaller;
-
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.batch.demo.audit.AuditListener;
+import com.example.batch.demo.audit.AuditLog;
+import com.example.batch.demo.chunk.AdaptiveCompletionPolicy;
+import com.example.batch.demo.chunk.AsyncItemProcessor;
+import com.example.batch.demo.chunk.AsyncItemWriter;
+import com.example.batch.demo.chunk.ChunkLatencyListener;
+import com.example.batch.demo.chunk.WriteRateLimiter;
+import com.example.batch.demo.feed.FeedDefinition;
+import com.example.batch.demo.feed.FeedRegistry;
+import com.example.batch.demo.file.DirectoryIndex;
+import com.example.batch.demo.file.DirectorySnapshot;
+import com.example.batch.demo.file.FileLifecycleManager;
+import com.example.batch.demo.file.QuarantineLog;
 import com.example.batch.demo.listener.FileMovingStepExecutionListener;
 import com.example.batch.demo.listener.JobLockListener;
-import com.example.batch.demo.model.Student;
-import com.example.batch.demo.model.Teacher;
-import com.example.batch.demo.repository.StudentRepository;
-import com.example.batch.demo.repository.TeacherRepository;
-
+import com.example.batch.demo.listener.JobLockManager;
+import com.example.batch.demo.metrics.BatchMetrics;
+import com.example.batch.demo.metrics.ChunkMetricsListener;
+import com.example.batch.demo.partition.FilePartitioner;
+import com.example.batch.demo.reader.CompressedXmlItemReader;
+import com.example.batch.demo.reader.FileHandoverItemReader;
+import com.example.batch.demo.reader.QuarantiningItemReader;
+import com.example.batch.demo.reader.XmlCursorItemReader;
+import com.example.batch.demo.writer.BisectingItemWriter;
+import com.example.batch.demo.writer.DimensionTable;
+import com.example.batch.demo.writer.EnrichingItemWriter;
+import com.example.batch.demo.writer.IdBlockAllocator;
+import com.example.batch.demo.writer.NaturalKeyIndex;
+import com.example.batch.demo.writer.StagingItemWriter;
+import com.example.batch.demo.writer.StagingMerge;
+import com.example.batch.demo.writer.UpsertItemWriter;
+
+// Assembles one import job per feed of the FeedRegistry. All feeds share the partition and process pools,
+// the directory index, the write rate limiter and the listeners, so adding feeds does not add threads.
 @Configuration
 @EnableBatchProcessing
 public class BatchConfig {
@@ -45,81 +94,262 @@ public class BatchConfig {
     @Autowired
     private StepBuilderFactory stepBuilderFactory;
 
-    private final List<Resource> processedResources = new ArrayList<>();
+    @Autowired
+    private DataSource dataSource;
 
-    private static final String STUDENT_FILE_DIRECTORY = "file:D:/Integrations/batch-test/students/*.xml";
-    private static final String TEACHER_FILE_DIRECTORY = "file:D:/Integrations/batch-test/teachers/*.xml";
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
-    // Main Batch Job Configuration for Students
-    @Bean
-    @Lazy
-    @ConditionalOnProperty(name = "student.job.enabled", havingValue = "true", matchIfMissing = true)
-    public Job importStudentJob(StudentRepository studentRepository) {
-        Step checkForFilesStep = checkForFilesStep(STUDENT_FILE_DIRECTORY, "checkForStudentFilesStep");
-        return jobBuilderFactory.get("importStudentJob")
+    @Autowired
+    private FileLifecycleManager fileLifecycleManager;
+
+    @Autowired
+    private DirectoryIndex directoryIndex;
+
+    @Autowired
+    private JobLockManager jobLockManager;
+
+    @Autowired
+    private BatchMetrics batchMetrics;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private QuarantineLog quarantineLog;
+
+    // A job's lock expires when no chunk has renewed it for this long
+    @Value("${batch.lock.lease-ms:600000}")
+    private long lockLeaseMillis;
+
+    // "jpa" saves through the repositories, "jdbc" writes each chunk as one JDBC batch, "staging" appends chunks
+    // to the table's staging table and merges a file's rows into the table in one statement once it committed
+    @Value("${batch.writer.mode:jpa}")
+    private String writerMode;
+
+    // "stax" uses StaxEventItemReader + JAXB, "cursor" maps elements straight from an XMLStreamReader
+    @Value("${batch.reader.mode:stax}")
+    private String readerMode;
+
+    // Cursor reader only: "offset" checkpoints the byte offset of the last committed item and seeks there on
+    // restart, "count" replays the file up to the committed item count
+    @Value("${batch.reader.restart-mode:offset}")
+    private String readerRestartMode;
+
+    // Read-ahead between the thread inflating a compressed input and the parser
+    @Value("${batch.reader.read-ahead-buffers:16}")
+    private int readAheadBuffers;
+
+    @Value("${batch.reader.read-ahead-buffer-size:65536}")
+    private int readAheadBufferSize;
+
+    // Files modified more recently than this may still be being written and are left for the next run
+    @Value("${batch.trigger.settle-ms:500}")
+    private long fileSettleMillis;
+
+    // Number of files (partitions) processed in parallel per step
+    @Value("${batch.partition.grid-size:4}")
+    private int gridSize;
+
+    // Cursor reader only: files of at least twice this size are split into up to grid-size byte-range partitions
+    // (0 never splits a file)
+    @Value("${batch.partition.min-range-bytes:67108864}")
+    private long minRangeBytes;
+
+    // Upper bound on files (oldest first) taken by one run, 0 takes every pending file
+    @Value("${batch.partition.max-files-per-run:0}")
+    private int maxFilesPerRun;
+
+    // Initial commit intervals are declared per feed; AdaptiveCompletionPolicy resizes them from the measured
+    // commit latency
+    @Value("${batch.chunk.min-size:1}")
+    private int minChunkSize;
+
+    @Value("${batch.chunk.max-size:1000}")
+    private int maxChunkSize;
+
+    @Value("${batch.chunk.target-latency-ms:500}")
+    private long targetChunkLatencyMs;
+
+    // "sync" processes items on the chunk thread, "async" on a bounded worker pool (processTaskExecutor)
+    @Value("${batch.processor.mode:sync}")
+    private String processorMode;
+
+    @Value("${batch.processor.pool-size:4}")
+    private int processorPoolSize;
+
+    // Items waiting for a worker; when the queue is full the chunk thread processes the item itself
+    @Value("${batch.processor.queue-capacity:1000}")
+    private int processorQueueCapacity;
+
+    // Write throttling: 0 rows/sec means unlimited, max latency makes the limiter back off on slow commits
+    @Value("${batch.throttle.rows-per-second:0}")
+    private double writeRowsPerSecond;
+
+    @Value("${batch.throttle.max-latency-ms:2000}")
+    private long maxWriteLatencyMs;
+
+    // "insert" writes every record; "upsert" skips records whose natural key is already loaded and MERGEs the rest
+    // as insert-if-absent (jdbc MERGE, or the staging merge), with a unique index on the natural key
+    @Value("${batch.load.mode:insert}")
+    private String loadMode;
+
+    @Value("${batch.upsert.key-index.max-size:1000000}")
+    private int keyIndexMaxSize;
+
+    // Fault tolerance: records that cannot be read or written go to the file's quarantine output and the rest of
+    // the file commits; a partition fails once it rejected more than skip-limit records
+    @Value("${batch.fault-tolerance.enabled:false}")
+    private boolean faultTolerant;
+
+    @Value("${batch.fault-tolerance.skip-limit:100}")
+    private int skipLimit;
+
+    // Dimension tables of the feeds' id columns (e.g. teacher.subject_id): values cached per table, least
+    // recently used evicted beyond max-size, entries looked up again after ttl-ms (0 = never)
+    @Value("${batch.dimension.cache.max-size:100000}")
+    private int dimensionCacheMaxSize;
+
+    @Value("${batch.dimension.cache.ttl-ms:600000}")
+    private long dimensionCacheTtlMillis;
+
+    @Autowired
+    private FeedRegistry feedRegistry;
+
+    @Autowired
+    private BeanFactory beanFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // One unmarshaller per feed model, shared by the feed's partitions
+    private final Map<String, Jaxb2Marshaller> unmarshallers = new ConcurrentHashMap<>();
+
+    // One cache per dimension table, shared by every feed and partition that resolves its values
+    private final Map<String, DimensionTable> dimensionTables = new ConcurrentHashMap<>();
+
+    // One key index per table in upsert load mode, shared by the feed's partitions and its staging merge
+    private final Map<String, NaturalKeyIndex> keyIndexes = new ConcurrentHashMap<>();
+
+    // Import job of a feed, registered as a bean named after the job by FeedJobRegistrar
+    public <T> Job importJob(FeedDefinition<T> feed) {
+        if (isUpsertLoadMode()) {
+            createNaturalKeyIndex(feed);
+        }
+        if ("jpa".equalsIgnoreCase(writerMode(feed)) && isJdbcWriterMode(feed)) {
+            System.out.println("Feed " + feed.getName() + " writes through the jdbc writer in "
+                    + (isUpsertLoadMode() ? "upsert load mode." : "fault-tolerant mode."));
+        }
+        if (isStagingWriterMode(feed)) {
+            // Merges a file's staged rows into the table before the file is archived
+            StagingMerge stagingMerge = new StagingMerge(jdbcTemplate, new TransactionTemplate(transactionManager),
+                    feed.getTable(), feed.getStagingTable(), feed.getColumns(),
+                    isUpsertLoadMode() ? feed.getNaturalKey() : null, isUpsertLoadMode() ? keyIndex(feed) : null);
+            if (faultTolerant) {
+                stagingMerge.setQuarantine(quarantineLog, row -> QuarantineLog.fragment(
+                        feed.getFragmentRootElementName(), feed.getFieldMappers().keySet(), row::get), skipLimit);
+            }
+            fileLifecycleManager.registerCompletionHandler(feed.getJobName(), stagingMerge);
+        }
+        Step checkForFilesStep = checkForFilesStep(feed.getDirectory(), "checkFor" + feed.getLabel() + "FilesStep");
+        return jobBuilderFactory.get(feed.getJobName())
                 .start(checkForFilesStep)
                 .on("NO_FILES").fail() // No files, set exit status to fail
                 .from(checkForFilesStep)
-                .on("*").to(studentStep(studentRepository)) // Files exist, process them
+                .on("*").to(feedStep(feed)) // Files exist, process them
                 .end()
-                .listener(new JobLockListener()) // Add JobLockListener
+                .listener((JobExecutionListener) jobLockListener()) // Stops a duplicate run of the same job
                 .build();
     }
 
-    // Main Batch Job Configuration for Teachers
+    // Upsert only: there a natural key identifies one record, while in insert mode two records may share it (two
+    // students of the same name and age). Created here rather than in schema.sql, as Hibernate's create-drop
+    // recreates the tables and the key is configurable per feed.
+    private void createNaturalKeyIndex(FeedDefinition<?> feed) {
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + feed.getTable() + "_natural_key ON "
+                + feed.getTable() + " (" + String.join(", ", feed.getNaturalKey()) + ")");
+    }
+
+    // One lock per job name, shared by all jobs and their worker steps
     @Bean
-    @Lazy
-    @ConditionalOnProperty(name = "teacher.job.enabled", havingValue = "true", matchIfMissing = true)
-    public Job importTeacherJob(TeacherRepository teacherRepository) {
-        Step checkForFilesStep = checkForFilesStep(TEACHER_FILE_DIRECTORY, "checkForTeacherFilesStep");
-        return jobBuilderFactory.get("importTeacherJob")
-                .start(checkForFilesStep)
-                .on("NO_FILES").fail() // No files, set exit status to fail
-                .from(checkForFilesStep)
-                .on("*").to(teacherStep(teacherRepository)) // Files exist, process them
-                .end()
-                .listener(new JobLockListener()) // Add JobLockListener
-                .build();
+    public JobLockListener jobLockListener() {
+        return new JobLockListener(jobLockManager, lockLeaseMillis);
     }
 
     // Step 1: Check if files are present
     public Step checkForFilesStep(String directory, String stepName) {
         return stepBuilderFactory.get(stepName)
                 .tasklet((contribution, chunkContext) -> {
-                    Resource[] resources = getResources(directory);
-                    if (resources.length == 0) {
+                    // Takes the execution's directory snapshot; the partitioner reuses it instead of rescanning
+                    DirectorySnapshot snapshot = directoryIndex.snapshot(directory,
+                            chunkContext.getStepContext().getStepExecution().getJobExecutionId());
+                    if (snapshot.isEmpty()) {
                         System.out.println("No files found.");
                         contribution
                                 .setExitStatus(new ExitStatus("NO_FILES", "No files found in directory: " + directory));
                     } else {
-                        System.out.println("Files found for processing: " + Arrays.toString(resources));
+                        System.out.println("Files found for processing: " + snapshot.pendingCount());
                     }
                     return RepeatStatus.FINISHED;
                 })
                 .build();
     }
 
-    // Step 2: Process students
-    @Bean
-    public Step studentStep(StudentRepository studentRepository) {
-        return stepBuilderFactory.get("studentStep")
-                .<Student, Student>chunk(2)
-                .reader(studentReader())
-                .processor(studentItemProcessor())
-                .writer(studentItemWriter(studentRepository))
-                .listener(new FileMovingStepExecutionListener(processedResources)) // Add listener for every chunk
+    // Step 2: Process the feed's files, one partition per discovered file (or byte range), on the shared pool
+    private <T> Step feedStep(FeedDefinition<T> feed) {
+        String workerStepName = feed.getName() + "WorkerStep";
+        return stepBuilderFactory.get(feed.getName() + "Step")
+                .partitioner(workerStepName, feedFilePartitioner(null, null))
+                .step(workerStep(feed, workerStepName))
+                .gridSize(gridSize)
+                .taskExecutor(partitionTaskExecutor())
                 .build();
     }
 
-    // Step 2: Process teachers
-    @Bean
-    public Step teacherStep(TeacherRepository teacherRepository) {
-        return stepBuilderFactory.get("teacherStep")
-                .<Teacher, Teacher>chunk(4)
-                .reader(teacherReader())
-                .processor(teacherItemProcessor())
-                .writer(teacherItemWriter(teacherRepository))
-                .listener(new FileMovingStepExecutionListener(processedResources))
+    // Worker step: reads a single file (or byte range) of the feed
+    @SuppressWarnings("unchecked")
+    private <T> Step workerStep(FeedDefinition<T> feed, String stepName) {
+        FileMovingStepExecutionListener fileMovingListener = new FileMovingStepExecutionListener(fileLifecycleManager);
+        AdaptiveCompletionPolicy completionPolicy = new AdaptiveCompletionPolicy(feed.getChunkSize(), minChunkSize,
+                maxChunkSize, targetChunkLatencyMs);
+        ChunkLatencyListener latencyListener = new ChunkLatencyListener(completionPolicy, writeRateLimiter());
+        ChunkMetricsListener metricsListener = new ChunkMetricsListener(batchMetrics);
+        AuditListener auditListener = new AuditListener(auditLog);
+        ItemReader<T> reader = (ItemReader<T>) feedItemReader(null, null, null, null, null); // Step scoped, per partition
+        ItemProcessor<T, T> processor = itemProcessor(feed);
+        AsyncItemWriter<T> asyncWriter = isAsyncProcessorMode()
+                ? new AsyncItemWriter<>(itemWriter(feed), batchMetrics) : null;
+        SimpleStepBuilder<T, ?> builder = isAsyncProcessorMode()
+                ? stepBuilderFactory.get(stepName)
+                        .<T, Future<T>>chunk(completionPolicy)
+                        .reader(reader)
+                        .processor(new AsyncItemProcessor<>(processor, processTaskExecutor()))
+                        .writer(asyncWriter)
+                        .listener((ItemWriteListener<Future<T>>) asyncWriter) // First, waits for the processing
+                : stepBuilderFactory.get(stepName)
+                        .<T, T>chunk(completionPolicy)
+                        .reader(reader)
+                        .processor(processor)
+                        .writer(itemWriter(feed));
+        // Throttled before each chunk's transaction starts, so the wait holds no connection and is not measured as
+        // commit latency (ChunkLatencyListener)
+        RepeatTemplate stepOperations = new RepeatTemplate();
+        stepOperations.registerListener(latencyListener);
+        builder.stepOperations(stepOperations);
+        return builder
+                .listener(dimensionWarmingListener(feed)) // Loads the dimension caches before the first chunk
+                .listener((StepExecutionListener) fileMovingListener) // Archives the partition's file once it committed
+                .listener((ChunkListener) fileMovingListener)
+                .listener((ChunkListener) jobLockListener()) // Renews the job's lock lease on every chunk
+                .listener((StepExecutionListener) completionPolicy) // Keeps a chunk size per partition
+                .listener((ChunkListener) latencyListener) // Feeds commit latency back into the chunk size
+                .listener((ItemWriteListener<Object>) latencyListener)
+                .listener((StepExecutionListener) metricsListener) // Commit latency and items/sec per job and file
+                .listener((ChunkListener) metricsListener)
+                .listener((ItemWriteListener<Object>) metricsListener)
+                .listener((StepExecutionListener) auditListener) // Sampled item events and a summary per file
+                .listener((ItemProcessListener<Object, Object>) auditListener)
+                .listener((ItemWriteListener<Object>) auditListener)
                 .build();
     }
 
@@ -134,184 +364,257 @@ public class BatchConfig {
                 .build();
     }
 
-    // Reader for student files
+    // Partitioner: every file of the running job's feed found at step start that no earlier run still owns
+    // becomes its own partition
     @Bean
     @StepScope
-    public ItemStreamReader<Student> studentReader() {
-        processedResources.clear(); // Clear the list for every job execution
-        Resource[] resources = getResources(STUDENT_FILE_DIRECTORY);
+    public Partitioner feedFilePartitioner(
+            @Value("#{stepExecution.jobExecution.jobInstance.jobName}") String jobName,
+            @Value("#{stepExecution.jobExecutionId}") Long jobExecutionId) {
+        FeedDefinition<?> feed = feedRegistry.forJob(jobName);
+        DirectorySnapshot snapshot = directoryIndex.snapshot(feed.getDirectory(), jobExecutionId);
+        return new FilePartitioner(jobName, snapshot.next(maxFilesPerRun), fileLifecycleManager,
+                fileSettleMillis, feed.getFragmentRootElementName(), isCursorReaderMode() ? minRangeBytes : 0);
+    }
 
-        if (resources.length == 0) { // Return an empty reader if no files are present
-            System.out.println("No files found. Using empty reader.");
-            return emptyItemReaderStudent();
-        }
+    // Bounded pool shared by the partitioned steps of all feeds; excess partitions wait in the queue
+    @Bean
+    public TaskExecutor partitionTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(gridSize);
+        executor.setMaxPoolSize(gridSize);
+        executor.setThreadNamePrefix("partition-");
+        return executor;
+    }
 
-        MultiResourceItemReader<Student> reader = new MultiResourceItemReader<>();
-        reader.setResources(new Resource[] { resources[0] }); // Only process the first file
-        reader.setDelegate(studentItemReader());
-        processedResources.add(resources[0]);
-        return reader;
+    // Worker pool of the async processor mode, shared by all feeds; saturation shows in batch.executor.* metrics
+    @Bean
+    public ThreadPoolTaskExecutor processTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(processorPoolSize);
+        executor.setMaxPoolSize(processorPoolSize);
+        executor.setQueueCapacity(processorQueueCapacity);
+        executor.setThreadNamePrefix("process-");
+        executor.setRejectedExecutionHandler(batchMetrics.monitorExecutor("process", executor));
+        return executor;
+    }
+
+    private boolean isAsyncProcessorMode() {
+        return "async".equalsIgnoreCase(processorMode);
     }
 
-    // Reader for teacher files
+    // XML reader of the running job's feed, one instance per partition; .xml.gz and .zip files are always
+    // read with the cursor reader, entry by entry. The file is handed over for archiving once the reader closed it
     @Bean
     @StepScope
-    public ItemStreamReader<Teacher> teacherReader() {
-        processedResources.clear(); // Clear the list for every job execution
-        Resource[] resources = getResources(TEACHER_FILE_DIRECTORY);
-
-        if (resources.length == 0) { // Return an empty reader if no files are present
-            System.out.println("No files found. Using empty reader.");
-            return emptyItemReaderTeacher();
-        }
+    public ItemStreamReader<?> feedItemReader(
+            @Value("#{stepExecution}") StepExecution stepExecution,
+            @Value("#{stepExecution.jobExecution.jobInstance.jobName}") String jobName,
+            @Value("#{stepExecutionContext['fileName']}") Resource file,
+            @Value("#{stepExecutionContext['file.range.start']}") Long rangeStart,
+            @Value("#{stepExecutionContext['file.range.end']}") Long rangeEnd) {
+        return handoverReader(itemReader(feedRegistry.forJob(jobName), file, rangeStart, rangeEnd),
+                () -> fileLifecycleManager.readerClosed(stepExecution));
+    }
 
-        MultiResourceItemReader<Teacher> reader = new MultiResourceItemReader<>();
-        reader.setResources(new Resource[] { resources[0] }); // Only process the first file
-        reader.setDelegate(teacherItemReader());
-        processedResources.add(resources[0]);
-        return reader;
+    private <T> ItemStreamReader<T> handoverReader(ItemStreamReader<T> reader, Runnable onClose) {
+        return new FileHandoverItemReader<>(
+                faultTolerant ? new QuarantiningItemReader<>(reader, quarantineLog, skipLimit) : reader, onClose);
     }
 
-    // Handle case with no resources
-    @Bean
-    public ItemStreamReader<Student> emptyItemReaderStudent() {
-        return new ItemStreamReader<Student>() {
-            @Override
-            public Student read() {
-                return null;
+    private <T> ItemStreamReader<T> itemReader(FeedDefinition<T> feed, Resource file, Long rangeStart,
+                                               Long rangeEnd) {
+        if (CompressedXmlItemReader.isCompressed(file.getFilename())) {
+            CompressedXmlItemReader<T> reader = new CompressedXmlItemReader<>(() -> cursorReader(feed));
+            reader.setResource(file);
+            reader.setReadAhead(readAheadBufferSize, readAheadBuffers);
+            return reader;
+        }
+        if (isCursorReaderMode()) {
+            XmlCursorItemReader<T> reader = cursorReader(feed);
+            reader.setResource(file);
+            reader.setRestartFromOffset("offset".equalsIgnoreCase(readerRestartMode));
+            if (rangeStart != null && rangeEnd != null) {
+                reader.setRange(rangeStart, rangeEnd);
             }
+            return reader;
+        }
+        StaxEventItemReader<T> reader = new StaxEventItemReader<>();
+        reader.setResource(file);
+        reader.setFragmentRootElementName(feed.getFragmentRootElementName());
+        reader.setUnmarshaller(unmarshaller(feed));
+        reader.setStrict(true);
+        return reader;
+    }
 
-            @Override
-            public void open(ExecutionContext executionContext) {
-            }
+    private <T> XmlCursorItemReader<T> cursorReader(FeedDefinition<T> feed) {
+        XmlCursorItemReader<T> reader = new XmlCursorItemReader<>(feed.getFragmentRootElementName(),
+                feed.getFactory(), feed.getFieldMappers());
+        reader.setStrict(true);
+        return reader;
+    }
 
-            @Override
-            public void update(ExecutionContext executionContext) {
-            }
+    private boolean isCursorReaderMode() {
+        return "cursor".equalsIgnoreCase(readerMode);
+    }
 
-            @Override
-            public void close() {
+    private Jaxb2Marshaller unmarshaller(FeedDefinition<?> feed) {
+        return unmarshallers.computeIfAbsent(feed.getName(), name -> {
+            Jaxb2Marshaller unmarshaller = new Jaxb2Marshaller();
+            unmarshaller.setClassesToBeBound(feed.getModelType());
+            // JAXB only reports a value it cannot convert, e.g. <age>twelve</age>, and maps it to the default;
+            // failing on it makes the record unreadable like in the cursor reader, so it is quarantined
+            unmarshaller.setValidationEventHandler(event -> event.getSeverity() == ValidationEvent.WARNING);
+            try {
+                unmarshaller.afterPropertiesSet();
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot create the JAXB context of feed " + name, e);
             }
-        };
+            return unmarshaller;
+        });
     }
 
-    @Bean
-    public ItemStreamReader<Teacher> emptyItemReaderTeacher() {
-        return new ItemStreamReader<Teacher>() {
-            @Override
-            public Teacher read() {
-                return null;
-            }
+    // Processor of a feed's items; public for the benchmarks
+    public <T> ItemProcessor<T, T> itemProcessor(FeedDefinition<T> feed) {
+        return item -> item; // Item events go to the audit log (AuditListener)
+    }
 
-            @Override
-            public void open(ExecutionContext executionContext) {
-            }
+    // Writer: the feed's writer strategy with its dimension ids resolved, idempotent in upsert load mode, and
+    // bisecting failed chunks in fault-tolerant mode (the jpa writer mode then writes through the jdbc writer, see
+    // isJdbcWriterMode). Writes are paced before the chunk transaction starts (see workerStep).
+    public <T> ItemWriter<T> itemWriter(FeedDefinition<T> feed) {
+        ItemWriter<T> delegate;
+        if (isStagingWriterMode(feed)) {
+            delegate = withIds(feed, new StagingItemWriter<>(jdbcTemplate, feed.getStagingTable(), feed.getColumns(),
+                    feed.getGetters()));
+        } else if (isJdbcWriterMode(feed)) {
+            delegate = jdbcItemWriter(feed);
+        } else {
+            delegate = beanFactory.getBean(feed.getRepositoryType())::saveAll;
+        }
+        // Inside the upsert writer, so values are only resolved for the items that are written
+        ItemWriter<T> enriched = feed.getDimensions().isEmpty() ? delegate
+                : new EnrichingItemWriter<>(delegate, feed.getDimensions().stream()
+                        .map(dimension -> new EnrichingItemWriter.Lookup<>(dimensionTable(dimension),
+                                dimension.getValue(), dimension.getIdSetter()))
+                        .collect(Collectors.toList()));
+        ItemWriter<T> writer;
+        if (!isUpsertLoadMode()) {
+            writer = enriched;
+        } else if (isStagingWriterMode(feed)) {
+            // Staged rows are not loaded yet: StagingMerge deduplicates them and adds their keys once it commits
+            writer = knownKeyFilter(feed, enriched);
+        } else {
+            writer = new UpsertItemWriter<>(enriched, keyIndex(feed),
+                    UpsertItemWriter.keyFunction(feed.getNaturalKey(), feed.getGetters()), batchMetrics);
+        }
+        if (!faultTolerant) {
+            return writer;
+        }
+        // Outermost, so the upsert writer only remembers the keys of halves that were written
+        return new BisectingItemWriter<>(writer, dataSource, quarantineLog,
+                item -> QuarantineLog.fragment(feed.getFragmentRootElementName(), feed.getFieldMappers().keySet(),
+                        column -> feed.getGetters().get(column).apply(item)), skipLimit);
+    }
 
-            @Override
-            public void update(ExecutionContext executionContext) {
-            }
+    private NaturalKeyIndex keyIndex(FeedDefinition<?> feed) {
+        return keyIndexes.computeIfAbsent(feed.getTable(), table -> new NaturalKeyIndex(jdbcTemplate, table,
+                feed.getNaturalKey(), keyIndexMaxSize));
+    }
 
-            @Override
-            public void close() {
+    // Drops the items whose natural key is already loaded, without remembering the keys it lets through
+    private <T> ItemWriter<T> knownKeyFilter(FeedDefinition<T> feed, ItemWriter<T> delegate) {
+        NaturalKeyIndex keyIndex = keyIndex(feed);
+        Function<T, String> keyFunction = UpsertItemWriter.keyFunction(feed.getNaturalKey(), feed.getGetters());
+        return items -> {
+            List<T> fresh = items.stream().filter(item -> !keyIndex.contains(keyFunction.apply(item)))
+                    .collect(Collectors.toList());
+            batchMetrics.recordDuplicatesSkipped(keyIndex.getTable(), items.size() - fresh.size());
+            if (!fresh.isEmpty()) {
+                delegate.write(fresh);
             }
         };
     }
 
-    // Read resources from the directory
-    private Resource[] getResources(String directory) {
-        try {
-            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(directory);
-            System.out.println("Detected files in directory " + directory + ": " + Arrays.toString(resources));
-            return resources;
-        } catch (IOException e) {
-            System.err.println("Error reading resources from directory " + directory + ": " + e.getMessage());
-            return new Resource[0];
-        }
+    private DimensionTable dimensionTable(FeedDefinition.Dimension<?> dimension) {
+        return dimensionTables.computeIfAbsent(dimension.getTable(), table -> new DimensionTable(jdbcTemplate,
+                transactionManager, table, dimension.getValueColumn(), dimensionCacheMaxSize, dimensionCacheTtlMillis,
+                batchMetrics));
     }
 
-    // XML Reader (specific to Student format)
-    @Bean
-    public StaxEventItemReader<Student> studentItemReader() {
-        StaxEventItemReader<Student> reader = new StaxEventItemReader<>();
-        reader.setFragmentRootElementName("student");
-        reader.setUnmarshaller(studentUnmarshaller());
-        reader.setStrict(true);
-        return reader;
+    // Pre-warms the feed's dimension caches when a partition starts; a cache warmed within its ttl is kept
+    private StepExecutionListener dimensionWarmingListener(FeedDefinition<?> feed) {
+        List<DimensionTable> tables = feed.getDimensions().stream().map(this::dimensionTable)
+                .collect(Collectors.toList());
+        return new StepExecutionListenerSupport() {
+            @Override
+            public void beforeStep(StepExecution stepExecution) {
+                tables.forEach(DimensionTable::warm);
+            }
+        };
     }
 
-    // XML Reader (specific to Teacher format)
-    @Bean
-    public StaxEventItemReader<Teacher> teacherItemReader() {
-        StaxEventItemReader<Teacher> reader = new StaxEventItemReader<>();
-        reader.setFragmentRootElementName("teacher");
-        reader.setUnmarshaller(teacherUnmarshaller());
-        reader.setStrict(true);
-        return reader;
+    // saveAll cannot insert-if-absent, and a failed JPA flush leaves the persistence context unusable for
+    // bisecting, so the jpa writer mode writes through the jdbc writer in upsert load and fault-tolerant modes
+    private boolean isJdbcWriterMode(FeedDefinition<?> feed) {
+        String mode = writerMode(feed);
+        return "jdbc".equalsIgnoreCase(mode) || ("jpa".equalsIgnoreCase(mode) && (isUpsertLoadMode() || faultTolerant));
     }
 
-    @Bean
-    public Jaxb2Marshaller studentUnmarshaller() {
-        Jaxb2Marshaller unmarshaller = new Jaxb2Marshaller();
-        unmarshaller.setClassesToBeBound(Student.class);
-        return unmarshaller;
+    private boolean isStagingWriterMode(FeedDefinition<?> feed) {
+        return "staging".equalsIgnoreCase(writerMode(feed));
     }
 
-    @Bean
-    public Jaxb2Marshaller teacherUnmarshaller() {
-        Jaxb2Marshaller unmarshaller = new Jaxb2Marshaller();
-        unmarshaller.setClassesToBeBound(Teacher.class);
-        return unmarshaller;
+    private String writerMode(FeedDefinition<?> feed) {
+        return feed.getWriterMode() != null ? feed.getWriterMode() : writerMode;
     }
 
-    // Processor for students
-    @Bean
-    public ItemProcessor<Student, Student> studentItemProcessor() {
-        return student -> {
-            System.out.println("Processing student: " + student);
-            return student;
-        };
+    private boolean isUpsertLoadMode() {
+        return "upsert".equalsIgnoreCase(loadMode);
     }
 
-    // Processor for teachers
-    @Bean
-    public ItemProcessor<Teacher, Teacher> teacherItemProcessor() {
-        return teacher -> {
-            System.out.println("Processing teacher: " + teacher);
-            return teacher;
-        };
+    // JDBC writer: the chunk goes out as one batch
+    private <T> ItemWriter<T> jdbcItemWriter(FeedDefinition<T> feed) {
+        JdbcBatchItemWriter<T> writer = new JdbcBatchItemWriterBuilder<T>()
+                .dataSource(dataSource)
+                .sql(isUpsertLoadMode()
+                        ? UpsertItemWriter.mergeSql(feed.getTable(), feed.getColumns(), feed.getNaturalKey())
+                        : insertSql(feed.getTable(), feed.getColumns().keySet()))
+                .assertUpdates(!isUpsertLoadMode()) // The MERGE inserts nothing for a key that is already loaded
+                .itemSqlParameterSourceProvider(item -> { // By column, derived columns have no bean property
+                    MapSqlParameterSource parameters = new MapSqlParameterSource();
+                    feed.getGetters().forEach((column, getter) -> parameters.addValue(column, getter.apply(item)));
+                    return parameters;
+                })
+                .build();
+        writer.afterPropertiesSet(); // detects the named parameters in the SQL
+        return withIds(feed, writer);
     }
 
-    // Writer: Write students to database
-    public ItemWriter<Student> studentItemWriter(StudentRepository studentRepository) {
+    // Ids are taken from a pre-allocated block before the chunk is written
+    private <T> ItemWriter<T> withIds(FeedDefinition<T> feed, ItemWriter<T> writer) {
+        IdBlockAllocator idAllocator = new IdBlockAllocator(jdbcTemplate, feed.getIdSequence(), feed.getIdBlockSize());
         return items -> {
-            for (Student student : items) {
-                System.out.println("Saving student to database: " + student);
-                studentRepository.save(student);
-            }
-
-            try {
-                Thread.sleep(2000); // Delay after writing each chunk
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Writing delay interrupted", e);
+            for (T item : items) {
+                if (feed.getIdGetter().apply(item) == null) {
+                    feed.getIdSetter().accept(item, idAllocator.nextId());
+                }
             }
+            writer.write(items);
         };
     }
 
-    // Writer: Write teachers to database
-    public ItemWriter<Teacher> teacherItemWriter(TeacherRepository teacherRepository) {
-        return items -> {
-            for (Teacher teacher : items) {
-                System.out.println("Saving teacher to database: " + teacher);
-                teacherRepository.save(teacher);
-            }
+    // INSERT INTO table (a, b) VALUES (:a, :b)
+    private static String insertSql(String table, Collection<String> columns) {
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + columns.stream().map(column -> ":" + column).collect(Collectors.joining(", ")) + ")";
+    }
 
-            try {
-                Thread.sleep(2000); // Delay after writing each chunk
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Writing delay interrupted", e);
-            }
-        };
+    // Shared by all writers, the database is the resource being protected; its back-off shows in batch.write.rate
+    @Bean
+    public WriteRateLimiter writeRateLimiter() {
+        WriteRateLimiter rateLimiter = new WriteRateLimiter(writeRowsPerSecond, maxWriteLatencyMs);
+        batchMetrics.monitorWriteRate(() -> Double.isInfinite(rateLimiter.getRate()) ? 0 : rateLimiter.getRate());
+        return rateLimiter;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package com.example.batch.demo.config;
+
+import org.springframework.batch.core.Job;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.example.batch.demo.feed.FeedDefinition;
+import com.example.batch.demo.feed.FeedRegistry;
+
+// Registers the feed registry and one Job bean per enabled feed, named after the job (importStudentJob, ...),
+// so jobs can still be injected by name. Each job is assembled by BatchConfig when the context starts.
+@Component
+public class FeedJobRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware, BeanFactoryAware {
+
+    private Environment environment;
+    private BeanFactory beanFactory;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+        FeedRegistry feedRegistry = new FeedRegistry(environment);
+        registry.registerBeanDefinition("feedRegistry", new RootBeanDefinition(FeedRegistry.class, () -> feedRegistry));
+        for (FeedDefinition<?> feed : feedRegistry.getEnabledFeeds()) {
+            RootBeanDefinition job = new RootBeanDefinition(Job.class,
+                    () -> beanFactory.getBean(BatchConfig.class).importJob(feed));
+            // The natural key index is warmed from the feed's table, which Hibernate creates
+            job.setDependsOn("entityManagerFactory");
+            registry.registerBeanDefinition(feed.getJobName(), job);
+        }
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+    }
+}
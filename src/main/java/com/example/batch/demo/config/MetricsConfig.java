@@ -0,0 +1,34 @@
+package com.example.batch.demo.config;
+
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.config.MeterFilter;
+
+@Configuration
+public class MetricsConfig {
+
+    private static final Pattern PARTITION_SUFFIX = Pattern.compile(":partition\\d+$");
+
+    // Spring Batch tags its step metrics with the step execution name, which for a partition is
+    // "<workerStep>:partition<n>"; folding the partitions into the worker step keeps the series count bounded
+    @Bean
+    public MeterFilter partitionStepNameFilter() {
+        return new MeterFilter() {
+            @Override
+            public Meter.Id map(Meter.Id id) {
+                if (!id.getName().startsWith("spring.batch.")) {
+                    return id;
+                }
+                return id.replaceTags(id.getTags().stream()
+                        .map(tag -> Tag.of(tag.getKey(), PARTITION_SUFFIX.matcher(tag.getValue()).replaceFirst("")))
+                        .collect(Collectors.toList()));
+            }
+        };
+    }
+}
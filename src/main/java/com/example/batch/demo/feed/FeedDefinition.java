@@ -0,0 +1,276 @@
+package com.example.batch.demo.feed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+// Everything that differs between two import pipelines: where the files are, which element is one record,
+// how a record maps onto the model and its table, its natural key, how it is written and how often the job
+// runs. BatchConfig assembles the job from this; the steps, executors, listeners and scanning are shared.
+public class FeedDefinition<T> {
+
+    private final String name;
+    private final Class<T> modelType;
+    private final Supplier<T> factory;
+    private final Class<? extends JpaRepository<T, Long>> repositoryType;
+
+    private String fragmentRootElementName;
+    private String table;
+    private final LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+    private final Map<String, Function<T, Object>> getters = new LinkedHashMap<>();
+    private final Map<String, BiConsumer<T, String>> fieldMappers = new LinkedHashMap<>();
+    private final List<Dimension<T>> dimensions = new ArrayList<>();
+    private Function<T, Long> idGetter;
+    private BiConsumer<T, Long> idSetter;
+    private String idSequence;
+    private int idBlockSize;
+
+    // Defaults, overridden by <name>.job.* properties (see FeedRegistry)
+    private String directory;
+    private List<String> naturalKey = Collections.emptyList();
+    private String writerMode;
+    private int chunkSize = 1;
+    private long fixedRate = 60000;
+    private long initialDelay = 60000;
+    private boolean enabled = true;
+    private int maxConcurrent = 1;
+    private int priority;
+
+    public FeedDefinition(String name, Class<T> modelType, Supplier<T> factory,
+                          Class<? extends JpaRepository<T, Long>> repositoryType) {
+        this.name = name;
+        this.modelType = modelType;
+        this.factory = factory;
+        this.repositoryType = repositoryType;
+        this.fragmentRootElementName = name;
+        this.table = name;
+    }
+
+    public FeedDefinition<T> fragment(String fragmentRootElementName) {
+        this.fragmentRootElementName = fragmentRootElementName;
+        return this;
+    }
+
+    public FeedDefinition<T> table(String table) {
+        this.table = table;
+        return this;
+    }
+
+    // Id column, filled from a block of the sequence by the JDBC writer
+    public FeedDefinition<T> id(Function<T, Long> getter, BiConsumer<T, Long> setter, String sequence, int blockSize) {
+        this.idGetter = getter;
+        this.idSetter = setter;
+        this.idSequence = sequence;
+        this.idBlockSize = blockSize;
+        columns.put("id", "BIGINT");
+        getters.put("id", getter::apply);
+        return this;
+    }
+
+    // A column read from the child element of the same name; the mapper parses the element's text
+    public FeedDefinition<T> field(String column, String sqlType, Function<T, Object> getter,
+                                   BiConsumer<T, String> mapper) {
+        columns.put(column, sqlType);
+        getters.put(column, getter);
+        fieldMappers.put(column, mapper);
+        return this;
+    }
+
+    // An id column taken from a dimension table with one row per distinct value of the record, e.g. the
+    // teacher's subject_id from the subject table; values the dimension does not hold yet are added to it
+    public FeedDefinition<T> dimension(String column, Function<T, Long> getter, BiConsumer<T, Long> setter,
+                                       String dimensionTable, String valueColumn, Function<T, String> value) {
+        columns.put(column, "BIGINT");
+        getters.put(column, getter::apply);
+        dimensions.add(new Dimension<>(dimensionTable, valueColumn, value, setter));
+        return this;
+    }
+
+    public FeedDefinition<T> directory(String directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    public FeedDefinition<T> naturalKey(List<String> naturalKey) {
+        this.naturalKey = naturalKey;
+        return this;
+    }
+
+    // "jpa", "jdbc" or "staging", null follows batch.writer.mode
+    public FeedDefinition<T> writerMode(String writerMode) {
+        this.writerMode = writerMode;
+        return this;
+    }
+
+    public FeedDefinition<T> chunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public FeedDefinition<T> schedule(long fixedRate, long initialDelay) {
+        this.fixedRate = fixedRate;
+        this.initialDelay = initialDelay;
+        return this;
+    }
+
+    public FeedDefinition<T> enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    // Executions of the job JobLaunchExecutor runs at the same time
+    public FeedDefinition<T> maxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+        return this;
+    }
+
+    // Launches of higher priority feeds are started first when launch threads are short
+    public FeedDefinition<T> priority(int priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // "Student" for the student feed, used in log lines and step names
+    public String getLabel() {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    public String getJobName() {
+        return "import" + getLabel() + "Job";
+    }
+
+    public Class<T> getModelType() {
+        return modelType;
+    }
+
+    public Supplier<T> getFactory() {
+        return factory;
+    }
+
+    public Class<? extends JpaRepository<T, Long>> getRepositoryType() {
+        return repositoryType;
+    }
+
+    public String getFragmentRootElementName() {
+        return fragmentRootElementName;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    // Staging table of the bulk load writer mode, declared next to the table in schema.sql
+    public String getStagingTable() {
+        return table + "_staging";
+    }
+
+    public LinkedHashMap<String, String> getColumns() {
+        return columns;
+    }
+
+    public Map<String, Function<T, Object>> getGetters() {
+        return getters;
+    }
+
+    public Map<String, BiConsumer<T, String>> getFieldMappers() {
+        return fieldMappers;
+    }
+
+    public List<Dimension<T>> getDimensions() {
+        return dimensions;
+    }
+
+    public Function<T, Long> getIdGetter() {
+        return idGetter;
+    }
+
+    public BiConsumer<T, Long> getIdSetter() {
+        return idSetter;
+    }
+
+    public String getIdSequence() {
+        return idSequence;
+    }
+
+    public int getIdBlockSize() {
+        return idBlockSize;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public List<String> getNaturalKey() {
+        return naturalKey;
+    }
+
+    public String getWriterMode() {
+        return writerMode;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public long getFixedRate() {
+        return fixedRate;
+    }
+
+    public long getInitialDelay() {
+        return initialDelay;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public static class Dimension<T> {
+
+        private final String table;
+        private final String valueColumn;
+        private final Function<T, String> value;
+        private final BiConsumer<T, Long> idSetter;
+
+        Dimension(String table, String valueColumn, Function<T, String> value, BiConsumer<T, Long> idSetter) {
+            this.table = table;
+            this.valueColumn = valueColumn;
+            this.value = value;
+            this.idSetter = idSetter;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String getValueColumn() {
+            return valueColumn;
+        }
+
+        public Function<T, String> getValue() {
+            return value;
+        }
+
+        public BiConsumer<T, Long> getIdSetter() {
+            return idSetter;
+        }
+    }
+}
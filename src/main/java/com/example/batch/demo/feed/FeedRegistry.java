@@ -0,0 +1,104 @@
+package com.example.batch.demo.feed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.core.env.Environment;
+
+import com.example.batch.demo.model.Student;
+import com.example.batch.demo.model.Teacher;
+import com.example.batch.demo.repository.StudentRepository;
+import com.example.batch.demo.repository.TeacherRepository;
+
+// The feeds this instance imports, each declared once. A new feed is one more declaration here (plus its
+// model, repository and table); its job, schedule, file watching and metrics follow from it. The declared
+// defaults can be overridden per feed with <name>.job.directory, .chunk-size, .natural-key, .writer-mode,
+// .fixedRate, .initialDelay, .enabled, .max-concurrent and .priority.
+public class FeedRegistry {
+
+    private final Environment environment;
+    private final Map<String, FeedDefinition<?>> feeds = new LinkedHashMap<>();
+
+    public FeedRegistry(Environment environment) {
+        this.environment = environment;
+
+        declare(new FeedDefinition<>("student", Student.class, Student::new, StudentRepository.class)
+                .id(Student::getId, Student::setId, Student.ID_SEQUENCE, Student.ID_BLOCK_SIZE)
+                .field("name", "VARCHAR(255)", Student::getName, Student::setName)
+                .field("age", "INT", Student::getAge,
+                        (student, value) -> student.setAge(Integer.parseInt(value.trim())))
+                .field("grade", "VARCHAR(255)", Student::getGrade, Student::setGrade)
+                .dimension("grade_id", Student::getGradeId, Student::setGradeId, "grade", "code", Student::getGrade)
+                .directory("file:D:/Integrations/batch-test/students/*.{xml,xml.gz,zip}")
+                .naturalKey(List.of("name", "age"))
+                .chunkSize(2)
+                .schedule(15000, 15000));
+
+        declare(new FeedDefinition<>("teacher", Teacher.class, Teacher::new, TeacherRepository.class)
+                .id(Teacher::getId, Teacher::setId, Teacher.ID_SEQUENCE, Teacher.ID_BLOCK_SIZE)
+                .field("name", "VARCHAR(255)", Teacher::getName, Teacher::setName)
+                .field("age", "INT", Teacher::getAge,
+                        (teacher, value) -> teacher.setAge(Integer.parseInt(value.trim())))
+                .field("subject", "VARCHAR(255)", Teacher::getSubject, Teacher::setSubject)
+                .field("experience", "INT", Teacher::getExperience,
+                        (teacher, value) -> teacher.setExperience(Integer.parseInt(value.trim())))
+                .dimension("subject_id", Teacher::getSubjectId, Teacher::setSubjectId, "subject", "name",
+                        Teacher::getSubject)
+                .directory("file:D:/Integrations/batch-test/teachers/*.{xml,xml.gz,zip}")
+                .naturalKey(List.of("name", "subject"))
+                .chunkSize(4)
+                .schedule(30000, 30000));
+    }
+
+    // Registers a feed, applying its <name>.job.* overrides
+    private void declare(FeedDefinition<?> feed) {
+        String prefix = feed.getName() + ".job.";
+        feed.directory(environment.getProperty(prefix + "directory", feed.getDirectory()))
+                .chunkSize(environment.getProperty(prefix + "chunk-size", Integer.class, feed.getChunkSize()))
+                .writerMode(environment.getProperty(prefix + "writer-mode", feed.getWriterMode()))
+                .schedule(environment.getProperty(prefix + "fixedRate", Long.class, feed.getFixedRate()),
+                        environment.getProperty(prefix + "initialDelay", Long.class, feed.getInitialDelay()))
+                .enabled(environment.getProperty(prefix + "enabled", Boolean.class, feed.isEnabled()))
+                .maxConcurrent(environment.getProperty(prefix + "max-concurrent", Integer.class,
+                        feed.getMaxConcurrent()))
+                .priority(environment.getProperty(prefix + "priority", Integer.class, feed.getPriority()));
+        String naturalKey = environment.getProperty(prefix + "natural-key");
+        if (naturalKey != null) {
+            feed.naturalKey(Arrays.stream(naturalKey.split(",")).map(String::trim).collect(Collectors.toList()));
+        }
+        if (feeds.putIfAbsent(feed.getName(), feed) != null) {
+            throw new IllegalStateException("Feed " + feed.getName() + " is declared twice");
+        }
+    }
+
+    public List<FeedDefinition<?>> getFeeds() {
+        return Collections.unmodifiableList(new ArrayList<>(feeds.values()));
+    }
+
+    public List<FeedDefinition<?>> getEnabledFeeds() {
+        return feeds.values().stream().filter(FeedDefinition::isEnabled).collect(Collectors.toList());
+    }
+
+    public FeedDefinition<?> get(String name) {
+        FeedDefinition<?> feed = feeds.get(name);
+        if (feed == null) {
+            throw new IllegalArgumentException("Unknown feed " + name);
+        }
+        return feed;
+    }
+
+    // The feed a job was assembled from, e.g. the student feed for importStudentJob
+    public FeedDefinition<?> forJob(String jobName) {
+        for (FeedDefinition<?> feed : feeds.values()) {
+            if (feed.getJobName().equals(jobName)) {
+                return feed;
+            }
+        }
+        throw new IllegalArgumentException("No feed for job " + jobName);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.batch.demo.file;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Keeps an index of every input directory and hands out one snapshot per job execution,
+// shared by all steps of that execution. Between executions the index is updated incrementally:
+// the directory is only listed again when its mtime changed (files added, removed or archived),
+// and only recently modified files, which may still be growing, are stat'ed again. Locations in the same
+// directory (feeds told apart by file name pattern) share one listing of it.
+@Component
+public class DirectoryIndex {
+
+    // A directory mtime this recent may still change within the same tick, so it is not trusted
+    private static final long MTIME_GRANULARITY_MILLIS = 2000;
+
+    private final Map<String, IndexedLocation> locations = new ConcurrentHashMap<>();
+    private final Map<Path, DirectoryListing> listings = new ConcurrentHashMap<>();
+    private final long restatWindowMillis;
+
+    public DirectoryIndex(@Value("${batch.directory.restat-window-ms:60000}") long restatWindowMillis) {
+        this.restatWindowMillis = restatWindowMillis;
+    }
+
+    // Snapshot for the given job execution; a null id always takes a fresh snapshot
+    public DirectorySnapshot snapshot(String location, Long jobExecutionId) {
+        return locations.computeIfAbsent(location, IndexedLocation::new).snapshot(jobExecutionId);
+    }
+
+    // Pending files in the latest snapshot of the location, 0 until a job has looked at it
+    public int lastPendingCount(String location) {
+        IndexedLocation indexed = locations.get(location);
+        DirectorySnapshot snapshot = indexed == null ? null : indexed.snapshot;
+        return snapshot == null ? 0 : snapshot.pendingCount();
+    }
+
+    private class IndexedLocation {
+
+        private final DirectoryPattern pattern;
+        private final DirectoryListing listing;
+        private Long snapshotJobExecutionId;
+        private volatile DirectorySnapshot snapshot;
+
+        IndexedLocation(String location) {
+            this.pattern = new DirectoryPattern(location);
+            this.listing = listings.computeIfAbsent(pattern.getDirectory(), DirectoryListing::new);
+        }
+
+        synchronized DirectorySnapshot snapshot(Long jobExecutionId) {
+            if (snapshot != null && jobExecutionId != null && Objects.equals(jobExecutionId, snapshotJobExecutionId)) {
+                return snapshot;
+            }
+            List<FileEntry> ordered = listing.refresh(pattern);
+            ordered.sort(Comparator.comparingLong(FileEntry::getLastModified)
+                    .thenComparing(entry -> entry.getPath().getFileName().toString()));
+            snapshot = new DirectorySnapshot(pattern.getLocation(), ordered);
+            snapshotJobExecutionId = jobExecutionId;
+            System.out.println("Directory " + pattern.getDirectory() + ": " + ordered.size() + " pending files.");
+            return snapshot;
+        }
+    }
+
+    // The regular files of one directory with their size and mtime
+    private class DirectoryListing {
+
+        private final Path directory;
+        private final Map<Path, FileEntry> entries = new HashMap<>();
+        private long directoryMtime = -1;
+
+        DirectoryListing(Path directory) {
+            this.directory = directory;
+        }
+
+        // Brings the listing up to date and returns the files matching the pattern
+        synchronized List<FileEntry> refresh(DirectoryPattern pattern) {
+            try {
+                refresh();
+            } catch (IOException e) {
+                System.err.println("Error reading directory " + directory + ": " + e.getMessage());
+                entries.clear();
+                directoryMtime = -1;
+            }
+            List<FileEntry> matching = new ArrayList<>();
+            for (FileEntry entry : entries.values()) {
+                if (pattern.matches(entry.getPath())) {
+                    matching.add(entry);
+                }
+            }
+            return matching;
+        }
+
+        private void refresh() throws IOException {
+            if (!Files.isDirectory(directory)) {
+                entries.clear();
+                directoryMtime = -1;
+                return;
+            }
+            long now = System.currentTimeMillis();
+            long currentMtime = Files.getLastModifiedTime(directory).toMillis();
+            if (currentMtime != directoryMtime) {
+                Set<Path> present = new HashSet<>();
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                    for (Path file : files) {
+                        if (Files.isRegularFile(file)) {
+                            present.add(file);
+                        }
+                    }
+                }
+                entries.keySet().retainAll(present);
+                for (Path file : present) {
+                    if (!entries.containsKey(file)) {
+                        stat(file);
+                    }
+                }
+                directoryMtime = now - currentMtime < MTIME_GRANULARITY_MILLIS ? -1 : currentMtime;
+            }
+            for (FileEntry entry : new ArrayList<>(entries.values())) {
+                if (now - entry.getLastModified() < restatWindowMillis) {
+                    stat(entry.getPath());
+                }
+            }
+        }
+
+        private void stat(Path file) {
+            try {
+                entries.put(file, new FileEntry(file, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+            } catch (IOException e) {
+                entries.remove(file); // Removed between listing and stat
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.batch.demo.file;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+
+// Splits an input location such as "file:D:/Integrations/batch-test/students/*.xml"
+// into the directory to look at and a matcher for the file name part.
+public class DirectoryPattern {
+
+    private final String location;
+    private final Path directory;
+    private final PathMatcher fileNameMatcher;
+
+    public DirectoryPattern(String location) {
+        this.location = location;
+        String path = location.startsWith("file:") ? location.substring("file:".length()) : location;
+        int separator = path.lastIndexOf('/');
+        this.directory = Paths.get(separator == -1 ? "." : path.substring(0, separator)).toAbsolutePath().normalize();
+        String glob = separator == -1 ? path : path.substring(separator + 1);
+        this.fileNameMatcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public boolean matches(Path file) {
+        return file.getParent() != null && directory.equals(file.getParent().toAbsolutePath().normalize())
+                && fileNameMatcher.matches(file.getFileName());
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.batch.demo.file;
+
+import java.util.Collections;
+import java.util.List;
+
+// The files of one input directory as seen at the start of a job execution, oldest first
+public class DirectorySnapshot {
+
+    private final String location;
+    private final List<FileEntry> entries;
+
+    public DirectorySnapshot(String location, List<FileEntry> entries) {
+        this.location = location;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public int pendingCount() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    // The n oldest files, or all of them when n <= 0
+    public List<FileEntry> next(int n) {
+        return n <= 0 || n >= entries.size() ? entries : entries.subList(0, n);
+    }
+
+    public List<FileEntry> getEntries() {
+        return entries;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.batch.demo.file;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+// Claims input files in BATCH_FILE_CLAIM (same datasource as the batch metadata) so several nodes can
+// drain one shared directory without reading a file twice. A node owns a file from claim until it is
+// archived or its partition fails; its claims are kept alive by a heartbeat and can be taken over by
+// another node once the heartbeat is older than the expiry.
+@Component
+public class FileClaimService {
+
+    private static final String TAKE_OVER_SQL = "UPDATE BATCH_FILE_CLAIM SET NODE_ID = ?, CLAIMED_AT = ?, HEARTBEAT_AT = ? "
+            + "WHERE FILE_NAME = ? AND HEARTBEAT_AT < ?";
+    private static final String INSERT_SQL = "INSERT INTO BATCH_FILE_CLAIM (FILE_NAME, NODE_ID, CLAIMED_AT, HEARTBEAT_AT) "
+            + "SELECT ?, ?, ?, ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM BATCH_FILE_CLAIM WHERE FILE_NAME = ?)";
+    private static final String OWNED_SQL = "SELECT FILE_NAME FROM BATCH_FILE_CLAIM "
+            + "WHERE NODE_ID = :nodeId AND FILE_NAME IN (:fileNames)";
+    private static final String HEARTBEAT_SQL = "UPDATE BATCH_FILE_CLAIM SET HEARTBEAT_AT = ? WHERE NODE_ID = ?";
+    private static final String RELEASE_SQL = "DELETE FROM BATCH_FILE_CLAIM WHERE FILE_NAME = ? AND NODE_ID = ?";
+    private static final String PURGE_SQL = "DELETE FROM BATCH_FILE_CLAIM WHERE HEARTBEAT_AT < ?";
+
+    // Claims of files that vanished without being released are purged after this many expiry periods
+    private static final int PURGE_AFTER_EXPIRIES = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final boolean enabled;
+    private final String nodeId;
+    private final long expiryMillis;
+    private final int batchSize;
+    private final ScheduledExecutorService heartbeat;
+
+    @Autowired
+    public FileClaimService(JdbcTemplate jdbcTemplate,
+                            @Value("${batch.claim.enabled:false}") boolean enabled,
+                            @Value("${batch.claim.node-id:}") String nodeId,
+                            @Value("${batch.claim.heartbeat-ms:10000}") long heartbeatMillis,
+                            @Value("${batch.claim.expiry-ms:60000}") long expiryMillis,
+                            @Value("${batch.claim.batch-size:100}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.enabled = enabled;
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : ManagementFactory.getRuntimeMXBean().getName();
+        this.expiryMillis = expiryMillis;
+        this.batchSize = Math.max(1, batchSize);
+        if (enabled) {
+            heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "file-claim-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+            heartbeat.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+            System.out.println("File claiming enabled for node " + this.nodeId + ".");
+        } else {
+            heartbeat = null;
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // Claims as many of the candidates as possible and returns the ones this node now owns, in order
+    public List<FileEntry> claim(List<FileEntry> candidates) {
+        if (!enabled || candidates.isEmpty()) {
+            return candidates;
+        }
+        List<FileEntry> claimed = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            List<FileEntry> batch = candidates.subList(from, Math.min(candidates.size(), from + batchSize));
+            Set<String> owned = claimBatch(batch.stream().map(FileEntry::getFileName).collect(Collectors.toList()));
+            for (FileEntry file : batch) {
+                if (owned.contains(file.getFileName())) {
+                    claimed.add(file);
+                }
+            }
+        }
+        return claimed;
+    }
+
+    public boolean claim(String fileName) {
+        return !enabled || claimBatch(List.of(fileName)).contains(fileName);
+    }
+
+    // Gives the file back, e.g. once it is archived or its partition failed
+    public void release(String fileName) {
+        if (enabled) {
+            jdbcTemplate.update(RELEASE_SQL, fileName, nodeId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (heartbeat != null) {
+            heartbeat.shutdown();
+        }
+    }
+
+    private Set<String> claimBatch(List<String> fileNames) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Timestamp expiredBefore = new Timestamp(now.getTime() - expiryMillis);
+
+        // Claims of nodes that stopped heart-beating are taken over; the WHERE clause makes this atomic per file
+        List<Object[]> takeOvers = new ArrayList<>();
+        for (String fileName : fileNames) {
+            takeOvers.add(new Object[] { nodeId, now, now, fileName, expiredBefore });
+        }
+        jdbcTemplate.batchUpdate(TAKE_OVER_SQL, takeOvers);
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (String fileName : fileNames) {
+            inserts.add(new Object[] { fileName, nodeId, now, now, fileName });
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        } catch (DataIntegrityViolationException e) {
+            // Another node inserted one of these files concurrently; claim the rest one by one
+            for (Object[] insert : inserts) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, insert);
+                } catch (DuplicateKeyException ignored) {
+                    // Claimed by the other node
+                }
+            }
+        }
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("nodeId", nodeId)
+                .addValue("fileNames", fileNames);
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(OWNED_SQL, parameters, String.class));
+    }
+
+    private void heartbeat() {
+        try {
+            long now = System.currentTimeMillis();
+            jdbcTemplate.update(HEARTBEAT_SQL, new Timestamp(now), nodeId);
+            jdbcTemplate.update(PURGE_SQL, new Timestamp(now - expiryMillis * PURGE_AFTER_EXPIRIES));
+        } catch (Exception e) {
+            System.err.println("Error renewing file claims of node " + nodeId + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.batch.demo.file;
+
+import org.springframework.batch.item.ExecutionContext;
+
+// Runs on the archiver thread once every partition of a file has committed, right before the file is archived.
+// If it throws, the file stays COMMITTED and in place and the archiver retries it (see FileLifecycleManager).
+public interface FileCompletionHandler {
+
+    // fileContext is the context of one of the file's partitions (file name, size, modification time, ...)
+    void complete(ExecutionContext fileContext) throws Exception;
+}
@@ -0,0 +1,51 @@
+package com.example.batch.demo.file;
+
+import java.net.MalformedURLException;
+import java.nio.file.Path;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+// A file as seen by the last directory scan
+public class FileEntry {
+
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+
+    public FileEntry(Path path, long size, long lastModified) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    // Same "file:/..." form as the URL of a resolved Resource, used as the file's key in execution contexts
+    public String getFileName() {
+        try {
+            return path.toUri().toURL().toExternalForm();
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Invalid file path " + path, e);
+        }
+    }
+
+    public Resource toResource() {
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public String toString() {
+        return path.getFileName() + " (" + size + " bytes)";
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.batch.demo.file;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Identifies input files by content rather than by path, so a renamed or re-delivered copy of a file that
+// was already loaded can be archived without being parsed again. Files are hashed through a memory-mapped
+// read (no copy into the Java heap, the digest runs on the JDK's hardware intrinsics), and the hash of a
+// path is cached for as long as its size and modification time do not change, so a file waiting in the
+// directory is hashed once and not on every scheduler tick. Fingerprints of loaded files are kept in
+// BATCH_INGESTED_FILE, next to the batch metadata.
+@Component
+public class FileFingerprintService {
+
+    private static final String INSERT_SQL = "INSERT INTO BATCH_INGESTED_FILE (FINGERPRINT, FILE_NAME, FILE_SIZE, INGESTED_AT) "
+            + "SELECT ?, ?, ?, ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM BATCH_INGESTED_FILE WHERE FINGERPRINT = ?)";
+    private static final String FIND_SQL = "SELECT FINGERPRINT FROM BATCH_INGESTED_FILE WHERE FINGERPRINT IN (:fingerprints)";
+
+    // Files larger than this are mapped and hashed one window at a time
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final int LOOKUP_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final boolean enabled;
+    private final String algorithm;
+    private final Map<Path, CachedFingerprint> cache;
+
+    @Autowired
+    public FileFingerprintService(JdbcTemplate jdbcTemplate,
+                                  @Value("${batch.fingerprint.enabled:true}") boolean enabled,
+                                  @Value("${batch.fingerprint.algorithm:SHA-256}") String algorithm,
+                                  @Value("${batch.fingerprint.cache-size:100000}") int cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.enabled = enabled;
+        this.algorithm = algorithm;
+        digest(); // Fail at startup on an unknown algorithm
+        // Least recently used paths are evicted first
+        this.cache = new LinkedHashMap<Path, CachedFingerprint>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, CachedFingerprint> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Hex digest of the file's content, hashed only if the path is new or its size or mtime changed
+    public String fingerprint(FileEntry file) throws IOException {
+        Path path = file.getPath();
+        synchronized (cache) {
+            CachedFingerprint cached = cache.get(path);
+            if (cached != null && cached.size == file.getSize() && cached.lastModified == file.getLastModified()) {
+                return cached.fingerprint;
+            }
+        }
+        String fingerprint = hash(path);
+        synchronized (cache) {
+            cache.put(path, new CachedFingerprint(file.getSize(), file.getLastModified(), fingerprint));
+        }
+        return fingerprint;
+    }
+
+    // The given fingerprints that belong to a file loaded before
+    public Set<String> findIngested(Collection<String> fingerprints) {
+        Set<String> ingested = new HashSet<>();
+        List<String> all = new ArrayList<>(fingerprints);
+        for (int from = 0; from < all.size(); from += LOOKUP_BATCH_SIZE) {
+            List<String> batch = all.subList(from, Math.min(all.size(), from + LOOKUP_BATCH_SIZE));
+            ingested.addAll(namedParameterJdbcTemplate.queryForList(FIND_SQL,
+                    new MapSqlParameterSource("fingerprints", batch), String.class));
+        }
+        return ingested;
+    }
+
+    // Keeps the first file a fingerprint was loaded from
+    public void recordIngested(String fingerprint, String fileName, long size) {
+        jdbcTemplate.update(INSERT_SQL, fingerprint, fileName, size, new Timestamp(System.currentTimeMillis()),
+                fingerprint);
+    }
+
+    // The path is gone (archived), its cached fingerprint can never be used again
+    public void forget(Path path) {
+        synchronized (cache) {
+            cache.remove(path);
+        }
+    }
+
+    private String hash(Path path) throws IOException {
+        MessageDigest digest = digest();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_WINDOW, size - position));
+                digest.update(window);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unknown fingerprint algorithm " + algorithm, e);
+        }
+    }
+
+    private static class CachedFingerprint {
+
+        private final long size;
+        private final long lastModified;
+        private final String fingerprint;
+
+        CachedFingerprint(long size, long lastModified, String fingerprint) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
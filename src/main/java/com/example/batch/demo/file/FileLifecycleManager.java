@@ -0,0 +1,548 @@
+package com.example.batch.demo.file;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.UrlResource;
+import org.springframework.stereotype.Component;
+
+// Tracks every input file through CLAIMED -> READING -> COMMITTED -> ARCHIVED.
+// The state lives in the partition's step execution context, so it survives a crash:
+// committed files that were never archived are archived on the next run instead of being read again,
+// and files whose partition failed resume from the last committed item.
+// Archiving happens in batches on a background thread, so the chunk/commit path never touches the filesystem;
+// a committed file is only queued once the partition's reader has closed it (FileHandoverItemReader).
+// Files whose content was loaded before under any name (FileFingerprintService) are archived at claim time
+// without a partition, and a file is not claimed while another file with the same content is in flight.
+// A large file can be split into byte-range partitions (split); it is archived only once every range has
+// committed, and if a range fails, the next attempt reads only the ranges that did not commit.
+// A job can register a FileCompletionHandler, run once per file before it is archived (e.g. to merge the rows
+// staged for the file into the target table); until the handler succeeds the file is not archived.
+@Component
+public class FileLifecycleManager {
+
+    public static final String FILE_NAME_KEY = "fileName";
+    public static final String FILE_STATE_KEY = "file.state";
+    public static final String FILE_SIZE_KEY = "file.size";
+    public static final String FILE_LAST_MODIFIED_KEY = "file.lastModified";
+    public static final String FILE_ARCHIVED_TO_KEY = "file.archivedTo";
+    public static final String FILE_FINGERPRINT_KEY = "file.fingerprint";
+    public static final String FILE_RANGE_INDEX_KEY = "file.range.index";
+    public static final String FILE_RANGE_COUNT_KEY = "file.range.count";
+    public static final String FILE_RANGE_START_KEY = "file.range.start";
+    public static final String FILE_RANGE_END_KEY = "file.range.end";
+
+    private static final String ARCHIVE_DIRECTORY = "done";
+    // Newest job instances read by recover(); BatchMetadataRetention never prunes them
+    public static final int RECOVERY_JOB_INSTANCES = 5;
+    private static final int MAX_ARCHIVE_ATTEMPTS = 5;
+
+    private final JobRepository jobRepository;
+    private final JobExplorer jobExplorer;
+    private final FileClaimService fileClaimService;
+    private final FileFingerprintService fileFingerprintService;
+
+    // Files owned by this node from claim until archived; they are never handed to a second partition
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    // Fingerprint of every file in flight, mapped to its file name
+    private final Map<String, String> inFlightFingerprints = new ConcurrentHashMap<>();
+    // Last committed context of partitions that did not complete, used to resume the file
+    private final Map<String, ExecutionContext> resumeContexts = new ConcurrentHashMap<>();
+    // Split files being read, and split files released after a range failed, by file name
+    private final Map<String, SplitFile> splitFiles = new ConcurrentHashMap<>();
+    private final Map<String, SplitFile> splitResumes = new ConcurrentHashMap<>();
+    private final Set<String> recoveredJobs = ConcurrentHashMap.newKeySet();
+    private final Map<List<StepExecution>, Integer> archiveAttempts = new ConcurrentHashMap<>();
+    private final Map<String, FileCompletionHandler> completionHandlers = new ConcurrentHashMap<>();
+    private final Set<Path> archiveDirectories = ConcurrentHashMap.newKeySet();
+    // Committed partitions whose reader still holds the file open, by step execution id
+    private final Set<Long> awaitingClose = ConcurrentHashMap.newKeySet();
+
+    // One entry per file: the partition that read it, or all of its byte-range partitions
+    private final BlockingQueue<List<StepExecution>> archiveQueue = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService archiver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "file-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public FileLifecycleManager(JobRepository jobRepository, JobExplorer jobExplorer, FileClaimService fileClaimService,
+                                FileFingerprintService fileFingerprintService,
+                                @Value("${batch.archive.interval-ms:250}") long archiveIntervalMs) {
+        this.jobRepository = jobRepository;
+        this.jobExplorer = jobExplorer;
+        this.fileClaimService = fileClaimService;
+        this.fileFingerprintService = fileFingerprintService;
+        archiver.scheduleWithFixedDelay(this::archivePending, archiveIntervalMs, archiveIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Claims files for new partitions, first on this node and then across nodes (FileClaimService),
+    // and returns one partition context per file that is now owned here
+    public List<ExecutionContext> claim(List<FileEntry> files) {
+        List<FileEntry> candidates = new ArrayList<>();
+        for (FileEntry file : files) {
+            if (!inFlight.contains(file.getFileName())) {
+                candidates.add(file);
+            }
+        }
+        List<FileEntry> claimed = new ArrayList<>();
+        for (FileEntry file : fileClaimService.claim(candidates)) {
+            if (!Files.exists(file.getPath())) {
+                fileClaimService.release(file.getFileName()); // Archived by another node since the directory scan
+            } else {
+                claimed.add(file);
+            }
+        }
+        Map<FileEntry, String> fingerprints = fingerprints(claimed);
+        Set<String> ingested = fingerprints.isEmpty() ? Set.of()
+                : fileFingerprintService.findIngested(new HashSet<>(fingerprints.values()));
+
+        List<ExecutionContext> contexts = new ArrayList<>();
+        for (FileEntry file : claimed) {
+            String fingerprint = fingerprints.get(file);
+            if (fingerprint != null && ingested.contains(fingerprint)) {
+                archiveUnread(file);
+                continue;
+            }
+            if (fingerprint != null && inFlightFingerprints.putIfAbsent(fingerprint, file.getFileName()) != null) {
+                // A copy is being loaded right now; once it is archived this one is known and skipped
+                System.out.println("File " + file + " has the same content as a file in flight, deferring it.");
+                fileClaimService.release(file.getFileName());
+                continue;
+            }
+            ExecutionContext context = claim(file);
+            if (context == null) {
+                if (fingerprint != null) {
+                    inFlightFingerprints.remove(fingerprint, file.getFileName());
+                }
+                continue;
+            }
+            if (fingerprint != null) {
+                context.putString(FILE_FINGERPRINT_KEY, fingerprint);
+            }
+            contexts.add(context);
+        }
+        return contexts;
+    }
+
+    // Files that cannot be hashed (e.g. removed meanwhile) are claimed without a fingerprint
+    private Map<FileEntry, String> fingerprints(List<FileEntry> files) {
+        Map<FileEntry, String> fingerprints = new HashMap<>();
+        if (!fileFingerprintService.isEnabled()) {
+            return fingerprints;
+        }
+        for (FileEntry file : files) {
+            try {
+                fingerprints.put(file, fileFingerprintService.fingerprint(file));
+            } catch (IOException e) {
+                System.err.println("Error fingerprinting file " + file + ": " + e.getMessage());
+            }
+        }
+        return fingerprints;
+    }
+
+    // Content loaded before: straight to the archive, no partition
+    private void archiveUnread(FileEntry file) {
+        try {
+            Path targetPath = moveToArchive(file.getPath());
+            fileFingerprintService.forget(file.getPath());
+            System.out.println("File " + file + " was already loaded, moved it to " + targetPath + " without reading it.");
+        } catch (IOException e) {
+            System.err.println("Error archiving already loaded file " + file + ": " + e.getMessage());
+        } finally {
+            fileClaimService.release(file.getFileName());
+        }
+    }
+
+    private ExecutionContext claim(FileEntry file) {
+        String fileName = file.getFileName();
+        long size = file.getSize();
+        long lastModified = file.getLastModified();
+        if (!inFlight.add(fileName)) {
+            return null;
+        }
+
+        ExecutionContext context = new ExecutionContext();
+        ExecutionContext previous = resumeContexts.remove(fileName);
+        if (previous != null && previous.getLong(FILE_SIZE_KEY, -1) == size
+                && previous.getLong(FILE_LAST_MODIFIED_KEY, -1) == lastModified) {
+            context = new ExecutionContext(previous); // Same file as before: continue after the last committed item
+            System.out.println("Resuming " + fileName + " from its last committed position.");
+        }
+        context.putString(FILE_NAME_KEY, fileName);
+        context.putString(FILE_STATE_KEY, FileState.CLAIMED.name());
+        context.putLong(FILE_SIZE_KEY, size);
+        context.putLong(FILE_LAST_MODIFIED_KEY, lastModified);
+        return context;
+    }
+
+    // Byte ranges ({start, end}) the file was split into by an earlier attempt that did not complete, or null.
+    // Reading it again must use the same ranges, as some of them are committed already.
+    public List<long[]> previousRanges(ExecutionContext fileContext) {
+        String fileName = fileContext.getString(FILE_NAME_KEY);
+        SplitFile previous = splitResumes.get(fileName);
+        if (previous == null) {
+            return null;
+        }
+        if (previous.size != fileContext.getLong(FILE_SIZE_KEY)
+                || previous.lastModified != fileContext.getLong(FILE_LAST_MODIFIED_KEY)) {
+            splitResumes.remove(fileName); // The file was replaced since
+            return null;
+        }
+        return Arrays.asList(previous.ranges);
+    }
+
+    // False for a file resumed from the last committed item of an unsplit partition, which is finished as a whole
+    public boolean canSplit(ExecutionContext fileContext) {
+        return fileContext.entrySet().stream()
+                .allMatch(entry -> entry.getKey().equals(FILE_NAME_KEY) || entry.getKey().startsWith("file."));
+    }
+
+    // Replaces the partition of a claimed file by one partition per byte range. Ranges committed by an earlier
+    // attempt are left out, ranges that failed resume from their last committed position.
+    public List<ExecutionContext> split(ExecutionContext fileContext, List<long[]> ranges) {
+        String fileName = fileContext.getString(FILE_NAME_KEY);
+        SplitFile split = new SplitFile(fileContext, ranges.toArray(new long[0][]));
+        SplitFile previous = splitResumes.remove(fileName);
+        List<ExecutionContext> contexts = new ArrayList<>();
+        for (int i = 0; i < split.ranges.length; i++) {
+            if (previous != null && previous.committed.containsKey(i)) {
+                split.committed.put(i, previous.committed.get(i));
+                continue;
+            }
+            ExecutionContext context = previous != null && previous.failed.containsKey(i)
+                    ? new ExecutionContext(previous.failed.get(i)) : new ExecutionContext();
+            for (Map.Entry<String, Object> entry : fileContext.entrySet()) {
+                context.put(entry.getKey(), entry.getValue());
+            }
+            context.putInt(FILE_RANGE_INDEX_KEY, i);
+            context.putInt(FILE_RANGE_COUNT_KEY, split.ranges.length);
+            context.putLong(FILE_RANGE_START_KEY, split.ranges[i][0]);
+            context.putLong(FILE_RANGE_END_KEY, split.ranges[i][1]);
+            contexts.add(context);
+        }
+        split.running = contexts.size();
+        if (contexts.isEmpty()) {
+            archiveQueue.add(new ArrayList<>(split.committed.values()));
+        } else {
+            splitFiles.put(fileName, split);
+            System.out.println("Split " + fileName + " into " + split.ranges.length + " byte ranges"
+                    + (previous != null ? ", " + contexts.size() + " of them left to read." : "."));
+        }
+        return contexts;
+    }
+
+    // Called for every file of the job once all its partitions committed, before the file is archived
+    public void registerCompletionHandler(String jobName, FileCompletionHandler handler) {
+        completionHandlers.put(jobName, handler);
+    }
+
+    public void markReading(StepExecution stepExecution) {
+        stepExecution.getExecutionContext().putString(FILE_STATE_KEY, FileState.READING.name());
+    }
+
+    // Called once the partition's last chunk has committed; the file is handed over when its reader closed it
+    public void markCommitted(StepExecution stepExecution) {
+        stepExecution.getExecutionContext().putString(FILE_STATE_KEY, FileState.COMMITTED.name());
+        awaitingClose.add(stepExecution.getId());
+    }
+
+    // Called once the partition's reader closed the file; hands a committed partition's file over for archiving
+    public void readerClosed(StepExecution stepExecution) {
+        if (!awaitingClose.remove(stepExecution.getId())) {
+            return;
+        }
+        ExecutionContext context = stepExecution.getExecutionContext();
+        if (!context.containsKey(FILE_RANGE_INDEX_KEY)) {
+            archiveQueue.add(List.of(stepExecution));
+            return;
+        }
+        String fileName = context.getString(FILE_NAME_KEY);
+        SplitFile split = splitFiles.get(fileName);
+        if (split != null && split.finish(context.getInt(FILE_RANGE_INDEX_KEY), stepExecution, null)) {
+            completeSplit(fileName, split);
+        }
+    }
+
+    // The partition did not complete: keep its last committed position and release the file for the next run
+    public void markFailed(StepExecution stepExecution) {
+        ExecutionContext context = stepExecution.getExecutionContext();
+        String fileName = context.getString(FILE_NAME_KEY);
+        StepExecution persisted = jobExplorer.getStepExecution(stepExecution.getJobExecutionId(),
+                stepExecution.getId());
+        ExecutionContext committed = persisted != null ? persisted.getExecutionContext() : context;
+        if (context.containsKey(FILE_RANGE_INDEX_KEY)) {
+            // The file is released once its other ranges are done too
+            SplitFile split = splitFiles.get(fileName);
+            if (split != null && split.finish(context.getInt(FILE_RANGE_INDEX_KEY), null,
+                    new ExecutionContext(committed))) {
+                completeSplit(fileName, split);
+            }
+            return;
+        }
+        if (committed.containsKey(FILE_SIZE_KEY)) {
+            resumeContexts.put(fileName, new ExecutionContext(committed));
+        }
+        forgetFingerprint(context);
+        inFlight.remove(fileName);
+        fileClaimService.release(fileName);
+    }
+
+    // All ranges of a split file are done: archive it, or release it for the next run to read the failed ranges
+    private void completeSplit(String fileName, SplitFile split) {
+        splitFiles.remove(fileName);
+        if (split.failed.isEmpty()) {
+            archiveQueue.add(new ArrayList<>(split.committed.values()));
+            return;
+        }
+        splitResumes.put(fileName, split);
+        forgetFingerprint(split.fileContext);
+        inFlight.remove(fileName);
+        fileClaimService.release(fileName);
+    }
+
+    // Once per job and JVM: picks up files left COMMITTED or half-read by earlier executions
+    public void recover(String jobName) {
+        if (!recoveredJobs.add(jobName)) {
+            return;
+        }
+        Set<String> seen = new HashSet<>();
+        Map<String, SplitFile> splits = new HashMap<>();
+        for (JobInstance instance : jobExplorer.getJobInstances(jobName, 0, RECOVERY_JOB_INSTANCES)) {
+            for (JobExecution jobExecution : jobExplorer.getJobExecutions(instance)) {
+                for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+                    ExecutionContext context = stepExecution.getExecutionContext();
+                    if (!context.containsKey(FILE_STATE_KEY) || !seen.add(partitionKey(context))) {
+                        continue; // Not a file partition, or a newer execution already decided for this file (range)
+                    }
+                    String fileName = context.getString(FILE_NAME_KEY);
+                    FileState state = FileState.valueOf(context.getString(FILE_STATE_KEY));
+                    if (context.containsKey(FILE_RANGE_INDEX_KEY)) {
+                        splits.computeIfAbsent(fileName, name -> new SplitFile(context,
+                                new long[context.getInt(FILE_RANGE_COUNT_KEY)][])).recover(stepExecution, state);
+                    } else if (state == FileState.COMMITTED && !inFlight.contains(fileName)
+                            && fileClaimService.claim(fileName) && inFlight.add(fileName)) {
+                        System.out.println("Recovered committed file " + fileName + ", archiving it.");
+                        archiveQueue.add(List.of(stepExecution));
+                    } else if (state != FileState.ARCHIVED && stepExecution.getStatus() != BatchStatus.COMPLETED) {
+                        resumeContexts.putIfAbsent(fileName, new ExecutionContext(context));
+                    }
+                }
+            }
+        }
+        splits.forEach(this::recoverSplit);
+    }
+
+    private void recoverSplit(String fileName, SplitFile split) {
+        if (split.archived) {
+            return;
+        }
+        if (Arrays.stream(split.ranges).anyMatch(Objects::isNull)) {
+            System.err.println("Ranges of split file " + fileName + " are missing from the job repository, "
+                    + "it will be read again as a whole.");
+            return;
+        }
+        if (split.committed.size() == split.ranges.length) {
+            if (!inFlight.contains(fileName) && fileClaimService.claim(fileName) && inFlight.add(fileName)) {
+                System.out.println("Recovered committed file " + fileName + ", archiving it.");
+                archiveQueue.add(new ArrayList<>(split.committed.values()));
+            }
+        } else {
+            splitResumes.putIfAbsent(fileName, split);
+        }
+    }
+
+    private static String partitionKey(ExecutionContext context) {
+        String fileName = context.getString(FILE_NAME_KEY);
+        return context.containsKey(FILE_RANGE_INDEX_KEY) ? fileName + "#" + context.getInt(FILE_RANGE_INDEX_KEY)
+                : fileName;
+    }
+
+    public boolean isInFlight(String fileName) {
+        return inFlight.contains(fileName);
+    }
+
+    // Files claimed by this node and not yet archived or given back
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    // Committed files waiting for the archiver
+    public int archiveBacklog() {
+        return archiveQueue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        archiver.shutdown();
+        archivePending();
+    }
+
+    // Moves every file queued since the last run, off the chunk threads
+    private synchronized void archivePending() {
+        List<List<StepExecution>> batch = new ArrayList<>();
+        archiveQueue.drainTo(batch);
+        for (List<StepExecution> partitions : batch) {
+            try {
+                archive(partitions);
+                archiveAttempts.remove(partitions);
+            } catch (Exception e) {
+                int attempts = archiveAttempts.merge(partitions, 1, Integer::sum);
+                System.err.println("Error archiving file " + partitions.get(0).getExecutionContext().getString(FILE_NAME_KEY)
+                        + " (attempt " + attempts + "): " + e.getMessage());
+                if (attempts < MAX_ARCHIVE_ATTEMPTS) {
+                    archiveQueue.add(partitions);
+                } else {
+                    archiveAttempts.remove(partitions); // Stays COMMITTED and claimed, recovered on the next start
+                }
+            }
+        }
+    }
+
+    // Completes the file, then moves it once and marks every partition that read it ARCHIVED
+    private void archive(List<StepExecution> partitions) throws Exception {
+        ExecutionContext context = partitions.get(0).getExecutionContext();
+        String fileName = context.getString(FILE_NAME_KEY);
+        Path sourcePath = new UrlResource(fileName).getFile().toPath();
+
+        FileCompletionHandler completionHandler = completionHandlers.get(
+                partitions.get(0).getJobExecution().getJobInstance().getJobName());
+        if (completionHandler != null) {
+            completionHandler.complete(context);
+        }
+
+        // Recorded before the move, so a copy arriving later is never loaded again even if archiving is retried
+        if (context.containsKey(FILE_FINGERPRINT_KEY)) {
+            fileFingerprintService.recordIngested(context.getString(FILE_FINGERPRINT_KEY), fileName,
+                    context.getLong(FILE_SIZE_KEY, 0));
+        }
+        Path targetPath = null;
+        if (Files.exists(sourcePath)) {
+            targetPath = moveToArchive(sourcePath);
+            fileFingerprintService.forget(sourcePath);
+            System.out.println("Moved file from " + sourcePath + " to " + targetPath);
+        } else {
+            System.out.println("File " + sourcePath.getFileName() + " does not exist, nothing to archive.");
+        }
+        for (StepExecution stepExecution : partitions) {
+            if (targetPath != null) {
+                stepExecution.getExecutionContext().putString(FILE_ARCHIVED_TO_KEY, targetPath.toString());
+            }
+            stepExecution.getExecutionContext().putString(FILE_STATE_KEY, FileState.ARCHIVED.name());
+            jobRepository.updateExecutionContext(stepExecution);
+        }
+        forgetFingerprint(context);
+        inFlight.remove(fileName);
+        fileClaimService.release(fileName);
+    }
+
+    private void forgetFingerprint(ExecutionContext context) {
+        if (context.containsKey(FILE_FINGERPRINT_KEY)) {
+            inFlightFingerprints.remove(context.getString(FILE_FINGERPRINT_KEY), context.getString(FILE_NAME_KEY));
+        }
+    }
+
+    private Path moveToArchive(Path sourcePath) throws IOException {
+        Path targetPath = archiveTarget(sourcePath);
+        try {
+            Files.move(sourcePath, targetPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(sourcePath, targetPath);
+        }
+        return targetPath;
+    }
+
+    // done/<name>, or done/<name>_<timestamp>.<ext> when a file of that name was archived before
+    private Path archiveTarget(Path sourcePath) throws IOException {
+        Path archiveDirectory = sourcePath.getParent().resolve(ARCHIVE_DIRECTORY);
+        if (archiveDirectories.add(archiveDirectory)) {
+            Files.createDirectories(archiveDirectory);
+        }
+        Path targetPath = archiveDirectory.resolve(sourcePath.getFileName());
+        if (Files.exists(targetPath)) {
+            String fileName = sourcePath.getFileName().toString();
+            int dotIndex = fileName.lastIndexOf('.');
+            String baseName = (dotIndex == -1) ? fileName : fileName.substring(0, dotIndex);
+            String extension = (dotIndex == -1) ? "" : fileName.substring(dotIndex);
+            targetPath = archiveDirectory.resolve(baseName + "_" + System.currentTimeMillis() + extension);
+        }
+        return targetPath;
+    }
+
+    // The byte-range partitions of one file
+    private static class SplitFile {
+
+        private final ExecutionContext fileContext;
+        private final long size;
+        private final long lastModified;
+        private final long[][] ranges;
+        private final Map<Integer, StepExecution> committed = new TreeMap<>();
+        private final Map<Integer, ExecutionContext> failed = new HashMap<>();
+        private int running;
+        private boolean archived;
+
+        SplitFile(ExecutionContext fileContext, long[][] ranges) {
+            this.fileContext = fileContext;
+            this.size = fileContext.getLong(FILE_SIZE_KEY);
+            this.lastModified = fileContext.getLong(FILE_LAST_MODIFIED_KEY);
+            this.ranges = ranges;
+        }
+
+        // Records the outcome of one range, true once the last running range is done
+        synchronized boolean finish(int index, StepExecution committedBy, ExecutionContext failedAt) {
+            if (committedBy != null) {
+                committed.put(index, committedBy);
+            } else {
+                failed.put(index, failedAt);
+            }
+            return --running == 0;
+        }
+
+        void recover(StepExecution stepExecution, FileState state) {
+            ExecutionContext context = stepExecution.getExecutionContext();
+            int index = context.getInt(FILE_RANGE_INDEX_KEY);
+            if (index >= ranges.length) {
+                return;
+            }
+            ranges[index] = new long[] {context.getLong(FILE_RANGE_START_KEY), context.getLong(FILE_RANGE_END_KEY)};
+            if (state == FileState.ARCHIVED) {
+                archived = true;
+            } else if (state == FileState.COMMITTED) {
+                committed.put(index, stepExecution);
+            } else {
+                failed.put(index, new ExecutionContext(context));
+            }
+        }
+    }
+}
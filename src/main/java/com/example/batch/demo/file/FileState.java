@@ -0,0 +1,9 @@
+package com.example.batch.demo.file;
+
+// Lifecycle of an input file, recorded in the partition's step execution context
+public enum FileState {
+    CLAIMED,    // Assigned to a partition, not opened yet
+    READING,    // Partition is reading and committing chunks
+    COMMITTED,  // Last item committed, waiting to be archived
+    ARCHIVED    // Moved to the done directory
+}
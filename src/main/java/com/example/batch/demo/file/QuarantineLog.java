@@ -0,0 +1,58 @@
+package com.example.batch.demo.file;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+// Records rejected by a fault-tolerant step, one output per input file: <dir>/quarantine/<file>.rejected next to
+// the done/ archive, one line per record with the time, the reason and, for records that were read, the record
+// as a fragment of the feed's XML. Byte-range partitions of one file append to the same output. Lines are
+// written as the rejects happen, so a chunk that later rolls back and is read again can repeat them.
+@Component
+public class QuarantineLog {
+
+    private static final String QUARANTINE_DIRECTORY = "quarantine";
+
+    public synchronized void reject(String fileName, String reason, String record) {
+        Path source = Paths.get(URI.create(fileName));
+        Path target = source.resolveSibling(QUARANTINE_DIRECTORY).resolve(source.getFileName() + ".rejected");
+        String line = Instant.now() + "\t" + oneLine(reason) + (record != null ? "\t" + oneLine(record) : "")
+                + System.lineSeparator();
+        try {
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error writing to quarantine " + target + ": " + e.getMessage() + ", record: " + line);
+        }
+    }
+
+    // <teacher><name>Teacher 1</name>...</teacher>
+    public static String fragment(String elementName, Iterable<String> fields, Function<String, Object> values) {
+        StringBuilder fragment = new StringBuilder("<").append(elementName).append('>');
+        for (String field : fields) {
+            Object value = values.apply(field);
+            if (value != null) {
+                fragment.append('<').append(field).append('>').append(escape(value.toString()))
+                        .append("</").append(field).append('>');
+            }
+        }
+        return fragment.append("</").append(elementName).append('>').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String oneLine(String text) {
+        return text.replaceAll("\\s*[\r\n]+\\s*", " ").replace('\t', ' ');
+    }
+}
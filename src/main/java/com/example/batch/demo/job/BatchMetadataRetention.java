@@ -0,0 +1,141 @@
+package com.example.batch.demo.job;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.batch.demo.file.FileLifecycleManager;
+
+// Keeps the BATCH_* job repository tables small, so launching a job and the repository's lookups do not
+// slow down with months of history. Finished executions are deleted with their step executions, contexts and
+// parameters, oldest first and batch-size executions per transaction, once they ended more than max-age ago
+// or are not among the newest max-count instances of their job. The newest
+// FileLifecycleManager.RECOVERY_JOB_INSTANCES instances of every job are always kept: recovery of committed
+// and half-read files looks no further back than those.
+@Component
+public class BatchMetadataRetention {
+
+    private static final String JOB_NAMES_SQL = "SELECT DISTINCT JOB_NAME FROM BATCH_JOB_INSTANCE";
+    private static final String NEWEST_INSTANCES_SQL = "SELECT JOB_INSTANCE_ID FROM BATCH_JOB_INSTANCE "
+            + "WHERE JOB_NAME = ? ORDER BY JOB_INSTANCE_ID DESC";
+    private static final String CANDIDATES_SQL = "SELECT E.JOB_EXECUTION_ID, E.JOB_INSTANCE_ID "
+            + "FROM BATCH_JOB_EXECUTION E JOIN BATCH_JOB_INSTANCE I ON I.JOB_INSTANCE_ID = E.JOB_INSTANCE_ID "
+            + "WHERE I.JOB_NAME = ? AND I.JOB_INSTANCE_ID < ? AND E.END_TIME IS NOT NULL "
+            + "AND E.STATUS NOT IN ('STARTING', 'STARTED', 'STOPPING') "
+            + "AND (E.END_TIME < ? OR I.JOB_INSTANCE_ID < ?) ORDER BY E.JOB_EXECUTION_ID";
+    private static final String[] DELETE_SQL = {
+            "DELETE FROM BATCH_STEP_EXECUTION_CONTEXT WHERE STEP_EXECUTION_ID IN "
+                    + "(SELECT STEP_EXECUTION_ID FROM BATCH_STEP_EXECUTION WHERE JOB_EXECUTION_ID IN (:executions))",
+            "DELETE FROM BATCH_STEP_EXECUTION WHERE JOB_EXECUTION_ID IN (:executions)",
+            "DELETE FROM BATCH_JOB_EXECUTION_CONTEXT WHERE JOB_EXECUTION_ID IN (:executions)",
+            "DELETE FROM BATCH_JOB_EXECUTION_PARAMS WHERE JOB_EXECUTION_ID IN (:executions)",
+            "DELETE FROM BATCH_JOB_EXECUTION WHERE JOB_EXECUTION_ID IN (:executions)",
+            "DELETE FROM BATCH_JOB_INSTANCE WHERE JOB_INSTANCE_ID IN (:instances) AND NOT EXISTS (SELECT 1 "
+                    + "FROM BATCH_JOB_EXECUTION E WHERE E.JOB_INSTANCE_ID = BATCH_JOB_INSTANCE.JOB_INSTANCE_ID)"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long maxAgeMillis;
+    private final int maxCount;
+    private final int batchSize;
+
+    // maxCount 0 prunes by age only
+    @Autowired
+    public BatchMetadataRetention(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  @Value("${batch.retention.enabled:true}") boolean enabled,
+                                  @Value("${batch.retention.max-age-ms:604800000}") long maxAgeMillis,
+                                  @Value("${batch.retention.max-count:1000}") int maxCount,
+                                  @Value("${batch.retention.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxCount = maxCount;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${batch.retention.interval-ms:3600000}",
+            fixedDelayString = "${batch.retention.interval-ms:3600000}")
+    public void scheduledPrune() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            prune(System.currentTimeMillis());
+        } catch (Exception e) {
+            System.err.println("Error pruning batch metadata: " + e.getMessage());
+        }
+    }
+
+    // Prunes every job's history as of the given time and returns the number of job executions deleted
+    public int prune(long now) {
+        int pruned = 0;
+        for (String jobName : jdbcTemplate.queryForList(JOB_NAMES_SQL, String.class)) {
+            pruned += prune(jobName, new Timestamp(now - maxAgeMillis));
+        }
+        if (pruned > 0) {
+            System.out.println("Pruned " + pruned + " job executions from the batch metadata.");
+        }
+        return pruned;
+    }
+
+    private int prune(String jobName, Timestamp endedBefore) {
+        long keptFrom = newestInstanceId(jobName, FileLifecycleManager.RECOVERY_JOB_INSTANCES);
+        long countedFrom = maxCount > 0 ? newestInstanceId(jobName, maxCount) : 0;
+        int pruned = 0;
+        while (true) {
+            List<Long> executions = new ArrayList<>();
+            List<Long> instances = new ArrayList<>();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(CANDIDATES_SQL);
+                statement.setMaxRows(batchSize);
+                statement.setString(1, jobName);
+                statement.setLong(2, keptFrom);
+                statement.setTimestamp(3, endedBefore);
+                statement.setLong(4, countedFrom);
+                return statement;
+            }, resultSet -> {
+                executions.add(resultSet.getLong(1));
+                instances.add(resultSet.getLong(2));
+            });
+            if (executions.isEmpty()) {
+                return pruned;
+            }
+            MapSqlParameterSource parameters = new MapSqlParameterSource(Map.of("executions", executions,
+                    "instances", instances));
+            transactionTemplate.executeWithoutResult(status -> {
+                for (String sql : DELETE_SQL) {
+                    namedParameterJdbcTemplate.update(sql, parameters);
+                }
+            });
+            pruned += executions.size();
+        }
+    }
+
+    // Id of the n-th newest instance of the job, so the n newest have an id >= it; 0 when there are fewer
+    private long newestInstanceId(String jobName, int n) {
+        List<Long> newest = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(NEWEST_INSTANCES_SQL);
+            statement.setMaxRows(n);
+            statement.setString(1, jobName);
+            return statement;
+        }, (resultSet, row) -> resultSet.getLong(1));
+        return newest.size() < n ? 0 : newest.get(n - 1);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.batch.demo.job;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.batch.demo.feed.FeedDefinition;
+import com.example.batch.demo.feed.FeedRegistry;
+import com.example.batch.demo.file.DirectoryPattern;
+
+// Event-driven trigger (batch.trigger.mode=watch): watches the input directories of all enabled feeds and
+// launches the matching job as soon as a new file has settled (size and mtime unchanged for settle-ms). Bursts
+// of arrivals are coalesced: a job is launched once its files have been quiet for debounce-ms, and arrivals
+// during a run queue at most one follow-up launch (JobLaunchExecutor). Feeds sharing a directory share its
+// watch key and scans.
+@Component
+@ConditionalOnProperty(name = "batch.trigger.mode", havingValue = "watch")
+public class FileArrivalWatcher {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final List<WatchedFeed> watchedFeeds = new ArrayList<>();
+    private final Map<Path, List<WatchedFeed>> feedsByDirectory = new LinkedHashMap<>();
+    private final Map<WatchKey, List<WatchedFeed>> watchKeys = new HashMap<>();
+    private final long settleMillis;
+    private final long debounceMillis;
+
+    private WatchService watchService;
+    private Thread watcherThread;
+    private volatile boolean running;
+
+    @Autowired
+    public FileArrivalWatcher(JobScheduler jobScheduler, FeedRegistry feedRegistry,
+                              @Value("${batch.trigger.settle-ms:500}") long settleMillis,
+                              @Value("${batch.trigger.debounce-ms:200}") long debounceMillis) {
+        this.settleMillis = settleMillis;
+        this.debounceMillis = debounceMillis;
+        for (FeedDefinition<?> feed : feedRegistry.getEnabledFeeds()) {
+            WatchedFeed watched = new WatchedFeed(feed.getName(), new DirectoryPattern(feed.getDirectory()),
+                    () -> jobScheduler.launchJob(feed.getName()));
+            watchedFeeds.add(watched);
+            feedsByDirectory.computeIfAbsent(watched.pattern.getDirectory(), directory -> new ArrayList<>())
+                    .add(watched);
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Map.Entry<Path, List<WatchedFeed>> entry : feedsByDirectory.entrySet()) {
+            Path directory = entry.getKey();
+            try {
+                WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                watchKeys.put(key, entry.getValue());
+                scan(directory, entry.getValue()); // Files that arrived while the application was down
+                System.out.println("Watching " + directory + " for " + names(entry.getValue()) + " files.");
+            } catch (IOException e) {
+                System.err.println("Cannot watch " + directory + ", relying on polling: " + e.getMessage());
+            }
+        }
+        running = true;
+        watcherThread = new Thread(this::watchLoop, "file-arrival-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        watchService.close();
+    }
+
+    private void watchLoop() {
+        try {
+            while (running) {
+                WatchKey key = watchService.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    List<WatchedFeed> feeds = watchKeys.get(key);
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            scan(directory, feeds); // Events were lost, look at the whole directory once
+                        } else {
+                            Path file = directory.resolve((Path) event.context());
+                            for (WatchedFeed watched : feeds) {
+                                watched.observe(file);
+                            }
+                        }
+                    }
+                    key.reset();
+                }
+                long now = System.currentTimeMillis();
+                for (WatchedFeed watched : watchedFeeds) {
+                    watched.checkSettled(now);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    // One listing of the directory, offered to every feed reading from it
+    private void scan(Path directory, List<WatchedFeed> feeds) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                for (WatchedFeed watched : feeds) {
+                    watched.observe(file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error scanning " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private static String names(List<WatchedFeed> feeds) {
+        return feeds.stream().map(watched -> watched.name).collect(Collectors.joining(", "));
+    }
+
+    private class WatchedFeed {
+
+        private final String name;
+        private final DirectoryPattern pattern;
+        private final Runnable launcher;
+
+        // Files seen but not settled yet: path -> {size, lastModified, time of last change}
+        private final Map<Path, long[]> candidates = new HashMap<>();
+        private long lastArrival;
+        private boolean workPending;
+
+        WatchedFeed(String name, DirectoryPattern pattern, Runnable launcher) {
+            this.name = name;
+            this.pattern = pattern;
+            this.launcher = launcher;
+        }
+
+        void observe(Path file) {
+            if (pattern.matches(file)) {
+                candidates.putIfAbsent(file, new long[] { -1, -1, System.currentTimeMillis() });
+                lastArrival = System.currentTimeMillis();
+            }
+        }
+
+        // Promotes files whose size and mtime stopped changing, and launches once arrivals have quietened down
+        void checkSettled(long now) {
+            Iterator<Map.Entry<Path, long[]>> iterator = candidates.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Path, long[]> candidate = iterator.next();
+                long[] seen = candidate.getValue();
+                try {
+                    long size = Files.size(candidate.getKey());
+                    long lastModified = Files.getLastModifiedTime(candidate.getKey()).toMillis();
+                    if (size != seen[0] || lastModified != seen[1]) {
+                        seen[0] = size;
+                        seen[1] = lastModified;
+                        seen[2] = now;
+                    } else if (now - seen[2] >= settleMillis) {
+                        iterator.remove();
+                        workPending = true;
+                    }
+                } catch (IOException e) {
+                    iterator.remove(); // Deleted or moved away before it settled
+                }
+            }
+            if (workPending && now - lastArrival >= debounceMillis) {
+                workPending = false;
+                System.out.println("New " + name + " files have settled, launching job.");
+                launcher.run(); // Only queues the launch
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.batch.demo.job;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.batch.demo.metrics.BatchMetrics;
+
+// Runs job launches on a bounded pool of its own, so a long run never holds up the scheduler thread that
+// fires the other feeds' ticks and the status heartbeat. Each job has at most one pending launch: a trigger
+// arriving while one is pending is coalesced into it, since the pending launch will see the same files.
+// A free thread takes the pending launch of the highest priority job that is below its max concurrent
+// executions, and among equal priorities the one waiting longest, so one busy feed cannot starve the others.
+@Component
+public class JobLaunchExecutor {
+
+    private final Map<String, JobQueue> jobs = new LinkedHashMap<>();
+    private final BatchMetrics batchMetrics;
+    private int pendingCount;
+    private int runningCount;
+    private boolean running = true;
+
+    @Autowired
+    public JobLaunchExecutor(BatchMetrics batchMetrics, @Value("${batch.launch.threads:2}") int threads) {
+        this.batchMetrics = batchMetrics;
+        batchMetrics.monitorLaunchQueue(this::getPendingCount, this::getRunningCount);
+        for (int i = 1; i <= threads; i++) {
+            Thread thread = new Thread(this::work, "job-launch-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    // Queues a launch of the job; false when it was coalesced into a launch already pending
+    public boolean submit(String jobName, int priority, int maxConcurrent, Runnable launch) {
+        synchronized (jobs) {
+            JobQueue queue = jobs.computeIfAbsent(jobName, JobQueue::new);
+            queue.priority = priority;
+            queue.maxConcurrent = Math.max(1, maxConcurrent);
+            if (queue.pending != null) {
+                batchMetrics.recordLaunchCoalesced(jobName);
+                return false;
+            }
+            queue.pending = launch;
+            queue.pendingSince = System.nanoTime();
+            pendingCount++;
+            jobs.notifyAll();
+            return true;
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (jobs) {
+            return pendingCount;
+        }
+    }
+
+    public int getRunningCount() {
+        synchronized (jobs) {
+            return runningCount;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (jobs) {
+            running = false;
+            jobs.notifyAll();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            JobQueue queue;
+            Runnable launch;
+            synchronized (jobs) {
+                while ((queue = next()) == null) {
+                    if (!running) {
+                        return;
+                    }
+                    try {
+                        jobs.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+                launch = queue.pending;
+                batchMetrics.recordLaunchWait(queue.jobName, System.nanoTime() - queue.pendingSince);
+                queue.pending = null;
+                queue.running++;
+                pendingCount--;
+                runningCount++;
+            }
+            try {
+                launch.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error launching " + queue.jobName + ": " + e.getMessage());
+            } finally {
+                synchronized (jobs) {
+                    queue.running--;
+                    runningCount--;
+                    jobs.notifyAll(); // The job may be below its limit again
+                }
+            }
+        }
+    }
+
+    // Highest priority, then longest waiting, of the jobs with a launch pending and a free execution slot
+    private JobQueue next() {
+        JobQueue next = null;
+        for (JobQueue queue : jobs.values()) {
+            if (queue.pending == null || queue.running >= queue.maxConcurrent) {
+                continue;
+            }
+            if (next == null || queue.priority > next.priority
+                    || queue.priority == next.priority && queue.pendingSince - next.pendingSince < 0) {
+                next = queue;
+            }
+        }
+        return next;
+    }
+
+    private static class JobQueue {
+
+        private final String jobName;
+        private int priority;
+        private int maxConcurrent = 1;
+        private Runnable pending;
+        private long pendingSince;
+        private int running;
+
+        JobQueue(String jobName) {
+            this.jobName = jobName;
+        }
+    }
+}
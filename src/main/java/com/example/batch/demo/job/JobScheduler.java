@@ -1,63 +1,142 @@
 package com.example.batch.demo.job;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
 import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
+import com.example.batch.demo.feed.FeedDefinition;
+import com.example.batch.demo.feed.FeedRegistry;
+import com.example.batch.demo.file.DirectoryIndex;
+import com.example.batch.demo.file.FileEntry;
+import com.example.batch.demo.file.FileLifecycleManager;
+
+// Polls every enabled feed at its declared fixed rate, on the shared scheduler pool. The tick only queues a
+// launch on JobLaunchExecutor, so the scheduler thread is never held by a run. A job is only launched
+// when its directory holds a file that is not in flight already, so an idle poll costs one (incremental)
+// directory listing and leaves no job instance, execution or context rows in the job repository.
 @Component
 public class JobScheduler {
 
     private final JobLauncher jobLauncher;
-    private final Job studentJob;
-    private final Job teacherJob;
+    private final JobLaunchExecutor launchExecutor;
+    private final TaskScheduler taskScheduler;
+    private final BeanFactory beanFactory;
+    private final FeedRegistry feedRegistry;
+    private final DirectoryIndex directoryIndex;
+    private final FileLifecycleManager fileLifecycleManager;
+    private final boolean watchMode;
+    private final long safetyNetMillis;
+
+    // Last launch per job name, used to thin out the fixed-rate poll in watch mode
+    private final Map<String, Long> lastLaunch = new ConcurrentHashMap<>();
 
     @Autowired
-    public JobScheduler(JobLauncher jobLauncher,
-                        @Autowired(required = false) @Qualifier("importStudentJob") Job studentJob,
-                        @Autowired(required = false) @Qualifier("importTeacherJob") Job teacherJob) {
+    public JobScheduler(JobLauncher jobLauncher, JobLaunchExecutor launchExecutor, TaskScheduler taskScheduler,
+                        BeanFactory beanFactory, FeedRegistry feedRegistry, DirectoryIndex directoryIndex,
+                        FileLifecycleManager fileLifecycleManager,
+                        @Value("${batch.trigger.mode:poll}") String triggerMode,
+                        @Value("${batch.trigger.safety-net-ms:300000}") long safetyNetMillis) {
         this.jobLauncher = jobLauncher;
-        this.studentJob = studentJob;
-        this.teacherJob = teacherJob;
+        this.launchExecutor = launchExecutor;
+        this.taskScheduler = taskScheduler;
+        this.beanFactory = beanFactory;
+        this.feedRegistry = feedRegistry;
+        this.directoryIndex = directoryIndex;
+        this.fileLifecycleManager = fileLifecycleManager;
+        this.watchMode = "watch".equalsIgnoreCase(triggerMode);
+        this.safetyNetMillis = safetyNetMillis;
     }
 
-    @Scheduled(fixedRateString = "${student.job.fixedRate}", initialDelayString = "${student.job.initialDelay}")
-    public void scheduleJobsForStudent() {
-        if (studentJob == null) {
-            System.out.println("Student Batch jobs are disabled.");
-            return;
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleFeeds() {
+        for (FeedDefinition<?> feed : feedRegistry.getFeeds()) {
+            if (!feed.isEnabled()) {
+                System.out.println(feed.getLabel() + " Batch jobs are disabled.");
+                continue;
+            }
+            taskScheduler.scheduleAtFixedRate(() -> scheduleJobs(feed.getName()),
+                    Instant.now().plusMillis(feed.getInitialDelay()), Duration.ofMillis(feed.getFixedRate()));
         }
-        System.out.println("Student Batch jobs have been started...");
-        try {
-            JobParameters jobParameters = new JobParametersBuilder()
-                    .addLong("timestamp", System.currentTimeMillis())
-                    .toJobParameters();
-            jobLauncher.run(studentJob, jobParameters);
-            System.out.println("Student Batch job has been triggered.");
-        } catch (Exception e) {
-            System.err.println("Error launching Student batch job: " + e.getMessage());
+    }
+
+    // Scheduled poll of one feed
+    public void scheduleJobs(String feedName) {
+        FeedDefinition<?> feed = feedRegistry.get(feedName);
+        if (watchMode && !isSafetyNetDue(feed.getJobName())) {
+            return; // FileArrivalWatcher launches the job; the poll only runs as a safety net
+        }
+        submit(feed);
+    }
+
+    // Polls every enabled feed once, right away
+    public void scheduleAllJobs() {
+        for (FeedDefinition<?> feed : feedRegistry.getEnabledFeeds()) {
+            scheduleJobs(feed.getName());
+        }
+    }
+
+    // Launches the feed's job right away, e.g. when new files have arrived
+    public void launchJob(String feedName) {
+        FeedDefinition<?> feed = feedRegistry.get(feedName);
+        if (feed.isEnabled()) {
+            submit(feed);
+        }
+    }
+
+    private boolean isSafetyNetDue(String jobName) {
+        Long last = lastLaunch.get(jobName);
+        return last == null || System.currentTimeMillis() - last >= safetyNetMillis;
+    }
+
+    // Files the job would claim; in-flight files belong to a running execution, which a new one would not touch
+    private boolean hasPendingFiles(FeedDefinition<?> feed) {
+        for (FileEntry file : directoryIndex.snapshot(feed.getDirectory(), null).getEntries()) {
+            if (!fileLifecycleManager.isInFlight(file.getFileName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void submit(FeedDefinition<?> feed) {
+        lastLaunch.put(feed.getJobName(), System.currentTimeMillis());
+        boolean queued = launchExecutor.submit(feed.getJobName(), feed.getPriority(), feed.getMaxConcurrent(),
+                () -> launch(feed));
+        if (!queued) {
+            System.out.println(feed.getLabel() + " Batch job is already queued.");
         }
     }
 
-    @Scheduled(fixedRateString = "${teacher.job.fixedRate}", initialDelayString = "${teacher.job.initialDelay}")
-    public void scheduleJobsForTeacher() {
-        if (teacherJob == null) {
-            System.out.println("Teacher Batch jobs are disabled.");
+    // Runs on a launch thread; files are checked only now, after an earlier run may have taken them
+    private void launch(FeedDefinition<?> feed) {
+        String label = feed.getLabel();
+        if (!hasPendingFiles(feed)) {
+            System.out.println("No pending " + label + " files, job not launched.");
             return;
         }
-        System.out.println("Teacher Batch jobs have been started...");
+        System.out.println(label + " Batch jobs have been started...");
         try {
+            Job job = beanFactory.getBean(feed.getJobName(), Job.class);
             JobParameters jobParameters = new JobParametersBuilder()
                     .addLong("timestamp", System.currentTimeMillis())
                     .toJobParameters();
-            jobLauncher.run(teacherJob, jobParameters);
-            System.out.println("Teacher Batch job has been triggered.");
+            jobLauncher.run(job, jobParameters);
+            System.out.println(label + " Batch job has been triggered.");
         } catch (Exception e) {
-            System.err.println("Error launching Teacher batch job: " + e.getMessage());
+            System.err.println("Error launching " + label + " batch job: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
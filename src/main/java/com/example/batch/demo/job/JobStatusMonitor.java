@@ -5,6 +5,8 @@ import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.example.batch.demo.metrics.BatchMetrics;
+
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
@@ -12,20 +14,21 @@ public class JobStatusMonitor {
 
     private final TaskScheduler taskScheduler;
     private final JobScheduler jobScheduler;
+    private final BatchMetrics batchMetrics;
     private final AtomicInteger itemCount = new AtomicInteger(0);
     private boolean isSchedulerRunning = false;
 
     @Autowired
-    public JobStatusMonitor(TaskScheduler taskScheduler, JobScheduler jobScheduler) {
+    public JobStatusMonitor(TaskScheduler taskScheduler, JobScheduler jobScheduler, BatchMetrics batchMetrics) {
         this.taskScheduler = taskScheduler;
         this.jobScheduler = jobScheduler;
+        this.batchMetrics = batchMetrics;
     }
 
     // Method to start the job scheduler
     public void startScheduler() {
         if (!isSchedulerRunning) {
-            jobScheduler.scheduleJobsForStudent();
-            jobScheduler.scheduleJobsForTeacher();
+            jobScheduler.scheduleAllJobs();
             isSchedulerRunning = true;
         }
     }
@@ -41,8 +44,9 @@ public class JobStatusMonitor {
     // Scheduled method to monitor job status
     @Scheduled(fixedRate = 5000) // Check every 5 seconds
     public void monitorJobStatus() {
-        // Logic to monitor job status and item count
-        System.out.println("Current item count: " + itemCount.get());
+        // Items committed since the last check; this also refreshes the items/sec gauges
+        updateItemCount((int) batchMetrics.sampleItemRates());
+        System.out.println("Current item count: " + itemCount.get() + ", items/sec: " + batchMetrics.getItemRates());
         // Additional logic to check job status can be added here
     }
 
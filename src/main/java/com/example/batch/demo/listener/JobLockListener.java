@@ -1,19 +1,56 @@
 package com.example.batch.demo.listener;
 
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.listener.ChunkListenerSupport;
+import org.springframework.batch.core.scope.context.ChunkContext;
 
-public class JobLockListener implements JobExecutionListener {
+// Holds the job's lease in JobLockManager for the whole execution. A duplicate execution of the same job
+// (and partition) is stopped before its first step; unrelated jobs never wait on each other.
+// Registered on the worker steps as well, where every committed chunk renews the lease.
+public class JobLockListener extends ChunkListenerSupport implements JobExecutionListener {
+
+    // Optional job parameter narrowing the lock to one input partition of the job
+    public static final String LOCK_PARTITION_PARAMETER = "lock.partition";
+
+    private final JobLockManager jobLockManager;
+    private final long leaseMillis;
+
+    public JobLockListener(JobLockManager jobLockManager, long leaseMillis) {
+        this.jobLockManager = jobLockManager;
+        this.leaseMillis = leaseMillis;
+    }
 
     @Override
     public void beforeJob(JobExecution jobExecution) {
-        if (!JobLockManager.acquireLock()) {
-            System.out.println("Job is already running.");
+        String key = lockKey(jobExecution);
+        if (!jobLockManager.acquire(key, jobExecution.getId(), leaseMillis)) {
+            System.out.println("Job " + key + " is already running (execution " + jobLockManager.getOwner(key)
+                    + "), stopping execution " + jobExecution.getId() + ".");
+            jobExecution.setStatus(BatchStatus.STOPPING); // No step will start
         }
     }
 
     @Override
     public void afterJob(JobExecution jobExecution) {
-        JobLockManager.releaseLock();
+        jobLockManager.release(lockKey(jobExecution), jobExecution.getId());
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        JobExecution jobExecution = stepExecution.getJobExecution();
+        if (!jobLockManager.renew(lockKey(jobExecution), jobExecution.getId(), leaseMillis)) {
+            System.err.println("Lock lease for " + lockKey(jobExecution) + " was lost, stopping "
+                    + stepExecution.getStepName() + ".");
+            stepExecution.setTerminateOnly();
+        }
+    }
+
+    private String lockKey(JobExecution jobExecution) {
+        return JobLockManager.lockKey(jobExecution.getJobInstance().getJobName(),
+                jobExecution.getJobParameters().getString(LOCK_PARTITION_PARAMETER));
     }
 }
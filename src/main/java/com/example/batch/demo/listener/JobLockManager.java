@@ -1,17 +1,59 @@
 package com.example.batch.demo.listener;
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.stereotype.Component;
+
+// Registry of job locks keyed by job name (optionally plus an input partition).
+// A lock is a lease held by one owner (the job execution id): it must be renewed before it expires,
+// only its owner can renew or release it, and an expired lease can be taken over by anyone.
+@Component
 public class JobLockManager {
 
-    private static final Lock lock = new ReentrantLock();
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    public static String lockKey(String jobName, String partition) {
+        return partition == null ? jobName : jobName + ":" + partition;
+    }
+
+    // True when the owner now holds the lease (newly acquired, taken over after expiry or already held)
+    public boolean acquire(String key, long ownerId, long leaseMillis) {
+        long now = System.currentTimeMillis();
+        Lease lease = leases.compute(key, (k, current) ->
+                current == null || current.ownerId == ownerId || current.expiresAt <= now
+                        ? new Lease(ownerId, now + leaseMillis)
+                        : current);
+        return lease.ownerId == ownerId;
+    }
 
-    public static boolean acquireLock() {
-        return lock.tryLock();
+    // Extends the lease; false when the owner has lost it
+    public boolean renew(String key, long ownerId, long leaseMillis) {
+        long now = System.currentTimeMillis();
+        Lease lease = leases.computeIfPresent(key, (k, current) ->
+                current.ownerId == ownerId && current.expiresAt > now ? new Lease(ownerId, now + leaseMillis) : current);
+        return lease != null && lease.ownerId == ownerId && lease.expiresAt > now;
     }
 
-    public static void releaseLock() {
-        lock.unlock();
+    // Releases the lease if it is still held by the owner; a lease taken over by someone else is left alone
+    public void release(String key, long ownerId) {
+        leases.computeIfPresent(key, (k, current) -> current.ownerId == ownerId ? null : current);
+    }
+
+    // Owner of a live lease, or null when the key is free
+    public Long getOwner(String key) {
+        Lease lease = leases.get(key);
+        return lease == null || lease.expiresAt <= System.currentTimeMillis() ? null : lease.ownerId;
+    }
+
+    private static class Lease {
+
+        private final long ownerId;
+        private final long expiresAt;
+
+        Lease(long ownerId, long expiresAt) {
+            this.ownerId = ownerId;
+            this.expiresAt = expiresAt;
+        }
     }
 }
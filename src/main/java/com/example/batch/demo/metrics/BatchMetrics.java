@@ -0,0 +1,253 @@
+package com.example.batch.demo.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.example.batch.demo.feed.FeedDefinition;
+import com.example.batch.demo.feed.FeedRegistry;
+import com.example.batch.demo.file.DirectoryIndex;
+import com.example.batch.demo.file.FileLifecycleManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Metrics of the import pipeline, exposed under /actuator/metrics and /actuator/prometheus.
+// Read, process and write timers per item/chunk come from Spring Batch itself (spring.batch.item.read,
+// spring.batch.item.process, spring.batch.chunk.write); this adds what it does not measure: commit latency,
+// items/sec per job and per file in flight, and the file backlog. Recording only touches per-chunk
+// counters and cached meters, nothing is allocated or looked up per item.
+@Component
+public class BatchMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, JobMeters> jobs = new ConcurrentHashMap<>();
+    private final Timer processWait;
+    private final Map<String, Counter> duplicatesSkipped = new ConcurrentHashMap<>();
+    private final Map<String, Timer> launchWaits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> launchesCoalesced = new ConcurrentHashMap<>();
+    private long lastSampleNanos = System.nanoTime();
+
+    @Autowired
+    public BatchMetrics(MeterRegistry meterRegistry, DirectoryIndex directoryIndex,
+                        FileLifecycleManager fileLifecycleManager, FeedRegistry feedRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.processWait = Timer.builder("batch.process.wait")
+                .description("Time the chunk thread waits for the async process stage before writing")
+                .register(meterRegistry);
+        // Backlog as of the latest directory snapshot, i.e. refreshed whenever a job checks for files
+        for (FeedDefinition<?> feed : feedRegistry.getEnabledFeeds()) {
+            Gauge.builder("batch.backlog.files", directoryIndex, index -> index.lastPendingCount(feed.getDirectory()))
+                    .description("Files pending in the input directory")
+                    .tag("job", feed.getJobName())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("batch.files.in-flight", fileLifecycleManager, FileLifecycleManager::inFlightCount)
+                .description("Files claimed and not yet archived")
+                .register(meterRegistry);
+        Gauge.builder("batch.files.archive-queue", fileLifecycleManager, FileLifecycleManager::archiveBacklog)
+                .description("Committed files waiting to be archived")
+                .register(meterRegistry);
+    }
+
+    // Write + commit time of one chunk
+    public void recordCommit(String jobName, long latencyNanos) {
+        job(jobName).commitTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordItems(String jobName, FileThroughput file, int count) {
+        JobMeters meters = job(jobName);
+        meters.itemsWritten.increment(count);
+        meters.sinceLastSample.add(count);
+        if (file != null) {
+            file.items.add(count);
+        }
+    }
+
+    // Items the upsert writer dropped because their natural key was already loaded
+    public void recordDuplicatesSkipped(String table, int count) {
+        if (count > 0) {
+            duplicatesSkipped.computeIfAbsent(table, name -> Counter.builder("batch.upsert.duplicates-skipped")
+                    .description("Items skipped because their natural key is already loaded")
+                    .tag("table", name)
+                    .register(meterRegistry)).increment(count);
+        }
+    }
+
+    public void recordProcessWait(long waitNanos) {
+        processWait.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Pool and queue usage of a worker pool, plus a count of tasks it had to hand back to the caller because
+    // pool and queue were full; install the returned handler on the pool to count them
+    public RejectedExecutionHandler monitorExecutor(String name, ThreadPoolTaskExecutor executor) {
+        Gauge.builder("batch.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Busy worker threads")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("batch.executor.queued", executor, pool -> pool.getThreadPoolExecutor().getQueue().size())
+                .description("Tasks waiting for a worker thread")
+                .tag("name", name)
+                .register(meterRegistry);
+        Counter callerRuns = Counter.builder("batch.executor.caller-runs")
+                .description("Tasks run on the submitting thread because the pool was saturated")
+                .tag("name", name)
+                .register(meterRegistry);
+        ThreadPoolExecutor.CallerRunsPolicy callerRunsPolicy = new ThreadPoolExecutor.CallerRunsPolicy();
+        return (task, pool) -> {
+            callerRuns.increment();
+            callerRunsPolicy.rejectedExecution(task, pool);
+        };
+    }
+
+    // Effective write rate of the shared WriteRateLimiter in rows/sec, 0 while unlimited
+    public void monitorWriteRate(DoubleSupplier rowsPerSecond) {
+        Gauge.builder("batch.write.rate", rowsPerSecond, DoubleSupplier::getAsDouble)
+                .description("Rows per second the writers are throttled to")
+                .register(meterRegistry);
+    }
+
+    // Launches waiting for a launch thread (or for a running execution of their job) and executions running
+    public void monitorLaunchQueue(IntSupplier pending, IntSupplier running) {
+        Gauge.builder("batch.launch.pending", pending, IntSupplier::getAsInt)
+                .description("Job launches waiting to start")
+                .register(meterRegistry);
+        Gauge.builder("batch.launch.running", running, IntSupplier::getAsInt)
+                .description("Job executions running on the launch threads")
+                .register(meterRegistry);
+    }
+
+    // Time from a job's trigger to the start of its launch
+    public void recordLaunchWait(String jobName, long waitNanos) {
+        launchWaits.computeIfAbsent(jobName, name -> Timer.builder("batch.launch.wait")
+                .description("Time a job launch waited before it started")
+                .tag("job", name)
+                .register(meterRegistry)).record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Triggers merged into a launch of the same job that was already waiting
+    public void recordLaunchCoalesced(String jobName) {
+        launchesCoalesced.computeIfAbsent(jobName, name -> Counter.builder("batch.launch.coalesced")
+                .description("Job triggers merged into an already pending launch")
+                .tag("job", name)
+                .register(meterRegistry)).increment();
+    }
+
+    // Lookups of a dimension table's values answered by its cache (hit) or by the table (miss), the resulting hit
+    // ratio, values added to the table and values cached
+    public void monitorDimension(String table, LongSupplier hits, LongSupplier misses, LongSupplier inserted,
+                                 IntSupplier cached) {
+        FunctionCounter.builder("batch.dimension.lookups", hits, LongSupplier::getAsLong)
+                .description("Dimension values looked up for a chunk")
+                .tag("table", table)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("batch.dimension.lookups", misses, LongSupplier::getAsLong)
+                .description("Dimension values looked up for a chunk")
+                .tag("table", table)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("batch.dimension.hit-ratio", () -> {
+            long lookups = hits.getAsLong() + misses.getAsLong();
+            return lookups == 0 ? Double.NaN : (double) hits.getAsLong() / lookups;
+        }).description("Share of dimension lookups answered by the cache")
+                .tag("table", table)
+                .register(meterRegistry);
+        FunctionCounter.builder("batch.dimension.inserted", inserted, LongSupplier::getAsLong)
+                .description("Values added to the dimension table")
+                .tag("table", table)
+                .register(meterRegistry);
+        Gauge.builder("batch.dimension.cached", cached, IntSupplier::getAsInt)
+                .description("Dimension values held in the cache")
+                .tag("table", table)
+                .register(meterRegistry);
+    }
+
+    // Registers an items/sec gauge for a file while its partition runs
+    public FileThroughput startFile(String jobName, String fileName) {
+        FileThroughput file = new FileThroughput();
+        file.gauge = Gauge.builder("batch.file.items.rate", file, FileThroughput::itemsPerSecond)
+                .description("Items per second committed from one file, while it is being imported")
+                .tag("job", jobName)
+                .tag("file", fileName.substring(fileName.lastIndexOf('/') + 1))
+                .register(meterRegistry);
+        return file;
+    }
+
+    public void finishFile(FileThroughput file) {
+        meterRegistry.remove(file.gauge);
+    }
+
+    // Updates the per-job items/sec gauges from the items committed since the previous call and
+    // returns that number; called at a fixed rate by JobStatusMonitor
+    public synchronized long sampleItemRates() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - lastSampleNanos) / 1e9);
+        lastSampleNanos = now;
+        long total = 0;
+        for (JobMeters meters : jobs.values()) {
+            long items = meters.sinceLastSample.sumThenReset();
+            meters.itemsPerSecond = items / seconds;
+            total += items;
+        }
+        return total;
+    }
+
+    public Map<String, Double> getItemRates() {
+        Map<String, Double> rates = new LinkedHashMap<>();
+        jobs.forEach((jobName, meters) -> rates.put(jobName, meters.itemsPerSecond));
+        return rates;
+    }
+
+    private JobMeters job(String jobName) {
+        return jobs.computeIfAbsent(jobName, JobMeters::new);
+    }
+
+    private class JobMeters {
+
+        private final Timer commitTimer;
+        private final Counter itemsWritten;
+        private final LongAdder sinceLastSample = new LongAdder();
+        private volatile double itemsPerSecond;
+
+        JobMeters(String jobName) {
+            commitTimer = Timer.builder("batch.chunk.commit")
+                    .description("Chunk write and commit latency")
+                    .tag("job", jobName)
+                    .register(meterRegistry);
+            itemsWritten = Counter.builder("batch.items.written")
+                    .description("Items committed")
+                    .tag("job", jobName)
+                    .register(meterRegistry);
+            Gauge.builder("batch.job.items.rate", this, meters -> meters.itemsPerSecond)
+                    .description("Items per second committed, over the last sampling interval")
+                    .tag("job", jobName)
+                    .register(meterRegistry);
+        }
+    }
+
+    public static class FileThroughput {
+
+        private final long startNanos = System.nanoTime();
+        private final LongAdder items = new LongAdder();
+        private Gauge gauge;
+
+        private double itemsPerSecond() {
+            return items.sum() / Math.max(1e-3, (System.nanoTime() - startNanos) / 1e9);
+        }
+    }
+}
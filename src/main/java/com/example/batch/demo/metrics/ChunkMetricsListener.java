@@ -0,0 +1,96 @@
+package com.example.batch.demo.metrics;
+
+import java.util.List;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+
+import com.example.batch.demo.file.FileLifecycleManager;
+
+// Feeds a worker step's committed chunks into BatchMetrics: commit latency and item counts per job and per file.
+public class ChunkMetricsListener implements StepExecutionListener, ChunkListener, ItemWriteListener<Object> {
+
+    private final BatchMetrics batchMetrics;
+
+    // A partition runs its step and all of its chunks on one thread
+    private final ThreadLocal<PartitionState> partition = new ThreadLocal<>();
+
+    public ChunkMetricsListener(BatchMetrics batchMetrics) {
+        this.batchMetrics = batchMetrics;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        PartitionState state = new PartitionState();
+        state.jobName = stepExecution.getJobExecution().getJobInstance().getJobName();
+        ExecutionContext context = stepExecution.getExecutionContext();
+        String fileName = context.getString(FileLifecycleManager.FILE_NAME_KEY, null);
+        if (fileName != null && context.containsKey(FileLifecycleManager.FILE_RANGE_INDEX_KEY)) {
+            fileName += "#" + context.getInt(FileLifecycleManager.FILE_RANGE_INDEX_KEY); // One gauge per byte range
+        }
+        state.file = fileName == null ? null : batchMetrics.startFile(state.jobName, fileName);
+        partition.set(state);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        PartitionState state = partition.get();
+        partition.remove();
+        if (state != null && state.file != null) {
+            batchMetrics.finishFile(state.file);
+        }
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+    }
+
+    @Override
+    public void beforeWrite(List<? extends Object> items) {
+        PartitionState state = partition.get();
+        if (state != null) {
+            state.writeStartNanos = System.nanoTime();
+            state.writeCount = items.size();
+        }
+    }
+
+    @Override
+    public void afterWrite(List<? extends Object> items) {
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<? extends Object> items) {
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        PartitionState state = partition.get();
+        if (state == null || state.writeCount == 0) {
+            return; // Nothing was written (e.g. the last, empty chunk)
+        }
+        batchMetrics.recordCommit(state.jobName, System.nanoTime() - state.writeStartNanos);
+        batchMetrics.recordItems(state.jobName, state.file, state.writeCount);
+        state.writeCount = 0;
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        PartitionState state = partition.get();
+        if (state != null) {
+            state.writeCount = 0;
+        }
+    }
+
+    private static class PartitionState {
+        private String jobName;
+        private BatchMetrics.FileThroughput file;
+        private long writeStartNanos;
+        private int writeCount;
+    }
+}
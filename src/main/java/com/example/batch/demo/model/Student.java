@@ -4,21 +4,38 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 import lombok.Data;
 
 @Entity
 @XmlRootElement(name = "student")
 public class Student {
+    // Ids come from a sequence in blocks so inserts can be batched (IDENTITY forces one round trip per row)
+    public static final String ID_SEQUENCE = "student_seq";
+    public static final int ID_BLOCK_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_BLOCK_SIZE)
     private Long id;
 
     private String name;
     private int age;
     private String grade;
+    private Long gradeId; // Filled before the write from the grade dimension table
+
+    @XmlTransient
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
 
     @XmlElement
     public String getName() {
@@ -47,6 +64,15 @@ public class Student {
         this.grade = grade;
     }
 
+    @XmlTransient
+    public Long getGradeId() {
+        return gradeId;
+    }
+
+    public void setGradeId(Long gradeId) {
+        this.gradeId = gradeId;
+    }
+
     @Override
     public String toString() {
         return "Student{" +
@@ -54,6 +80,7 @@ public class Student {
                 ", name='" + name + '\'' +
                 ", age=" + age +
                 ", grade='" + grade + '\'' +
+                ", gradeId=" + gradeId +
                 '}';
     }
 }
\ No newline at end of file
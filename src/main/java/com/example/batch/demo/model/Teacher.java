@@ -4,23 +4,40 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 
 import lombok.Data;
 
 @Entity
 @XmlRootElement(name = "teacher")
 public class Teacher {
+    // Ids come from a sequence in blocks so inserts can be batched (IDENTITY forces one round trip per row)
+    public static final String ID_SEQUENCE = "teacher_seq";
+    public static final int ID_BLOCK_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_BLOCK_SIZE)
     private Long id;
 
     private String name;
     private int age;
     private String subject;
+    private Long subjectId; // Filled before the write from the subject dimension table
     private int experience;
 
+    @XmlTransient
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     @XmlElement
     public String getName() {
         return name;
@@ -48,6 +65,15 @@ public class Teacher {
         this.subject = subject;
     }
 
+    @XmlTransient
+    public Long getSubjectId() {
+        return subjectId;
+    }
+
+    public void setSubjectId(Long subjectId) {
+        this.subjectId = subjectId;
+    }
+
     @XmlElement
     public int getExperience() {
         return experience;
@@ -64,6 +90,7 @@ public class Teacher {
                 ", name='" + name + '\'' +
                 ", age=" + age +
                 ", subject='" + subject + '\'' +
+                ", subjectId=" + subjectId +
                 ", experience=" + experience +
                 '}';
     }
@@ -0,0 +1,103 @@
+package com.example.batch.demo.partition;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import com.example.batch.demo.file.FileEntry;
+import com.example.batch.demo.file.FileLifecycleManager;
+import com.example.batch.demo.reader.CompressedXmlItemReader;
+import com.example.batch.demo.reader.XmlFragmentScanner;
+
+// One partition per input file. Files still owned by an earlier run or by another node (being read or
+// waiting to be archived) are left out, so a file is never read twice, and so are files modified within
+// the last settleMillis, which may still be being written.
+// A file of at least two minRangeBytes is split into up to gridSize byte ranges at <fragment> start tags,
+// one partition each, so a single large file is read by several threads. Compressed files are never split.
+public class FilePartitioner implements Partitioner {
+
+    private final String jobName;
+    private final List<FileEntry> files;
+    private final FileLifecycleManager fileLifecycleManager;
+    private final long settleMillis;
+    private final String fragmentRootElementName;
+    private final long minRangeBytes;
+
+    // minRangeBytes 0 never splits a file
+    public FilePartitioner(String jobName, List<FileEntry> files, FileLifecycleManager fileLifecycleManager,
+                           long settleMillis, String fragmentRootElementName, long minRangeBytes) {
+        this.jobName = jobName;
+        this.files = files;
+        this.fileLifecycleManager = fileLifecycleManager;
+        this.settleMillis = settleMillis;
+        this.fragmentRootElementName = fragmentRootElementName;
+        this.minRangeBytes = minRangeBytes;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        fileLifecycleManager.recover(jobName);
+
+        List<FileEntry> settled = new ArrayList<>();
+        long settledBefore = System.currentTimeMillis() - settleMillis;
+        for (FileEntry file : files) {
+            if (file.getLastModified() > settledBefore) {
+                System.out.println("File " + file + " is still being written, skipping.");
+            } else {
+                settled.add(file);
+            }
+        }
+
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        List<ExecutionContext> claimed = fileLifecycleManager.claim(settled);
+        for (ExecutionContext context : claimed) {
+            List<long[]> ranges = ranges(context, gridSize);
+            List<ExecutionContext> contexts = ranges == null ? List.of(context)
+                    : fileLifecycleManager.split(context, ranges);
+            for (ExecutionContext partition : contexts) {
+                partitions.put("partition" + partitions.size(), partition);
+            }
+        }
+        if (claimed.size() < settled.size()) {
+            System.out.println((settled.size() - claimed.size()) + " files are already being processed, skipping.");
+        }
+        return partitions;
+    }
+
+    // The byte ranges to read the file in, null to read it in one partition
+    private List<long[]> ranges(ExecutionContext context, int gridSize) {
+        List<long[]> previous = fileLifecycleManager.previousRanges(context);
+        if (previous != null) {
+            return previous;
+        }
+        long size = context.getLong(FileLifecycleManager.FILE_SIZE_KEY);
+        int parts = minRangeBytes > 0 ? (int) Math.min(gridSize, size / minRangeBytes) : 1;
+        String fileName = context.getString(FileLifecycleManager.FILE_NAME_KEY);
+        if (parts < 2 || CompressedXmlItemReader.isCompressed(fileName) || !fileLifecycleManager.canSplit(context)) {
+            return null;
+        }
+        List<Long> starts;
+        try (FileChannel channel = FileChannel.open(Paths.get(URI.create(fileName)), StandardOpenOption.READ)) {
+            starts = new XmlFragmentScanner(fragmentRootElementName, channel, true).split(parts);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error splitting file " + fileName + ", reading it as a whole: " + e.getMessage());
+            return null;
+        }
+        if (starts.size() < 2) {
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++) {
+            ranges.add(new long[] {starts.get(i), i + 1 < starts.size() ? starts.get(i + 1) : size});
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.batch.demo.reader;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ParseException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ClassUtils;
+
+// Reads .xml.gz and .zip inputs without unpacking them to disk. Every .xml entry of a zip is a logical file,
+// read in archive order; a .xml.gz is one. Each logical file is inflated on its own thread into a bounded
+// read-ahead buffer (ReadAheadInputStream) and parsed by an XmlCursorItemReader, so inflate and parse overlap.
+// A restart opens the entry it stopped in directly (zip central directory, no inflating of earlier entries)
+// and replays that entry up to its committed item count.
+public class CompressedXmlItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+    private static final String ENTRY_INDEX_KEY = "entry.index";
+    private static final String ENTRY_READ_COUNT_KEY = "entry.read.count";
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Supplier<XmlCursorItemReader<T>> entryReaderFactory;
+
+    private Resource resource;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private int bufferCount = 16;
+
+    private ZipFile zipFile;
+    private List<ZipEntry> entries;
+    private XmlCursorItemReader<T> entryReader;
+    private int entryIndex;
+    private int entryItemCount;
+
+    public CompressedXmlItemReader(Supplier<XmlCursorItemReader<T>> entryReaderFactory) {
+        this.entryReaderFactory = entryReaderFactory;
+        setName(ClassUtils.getShortName(CompressedXmlItemReader.class));
+    }
+
+    public static boolean isCompressed(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(".gz") || name.endsWith(".zip");
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    // Size and number of the read-ahead buffers between the inflating thread and the parser
+    public void setReadAhead(int bufferSize, int bufferCount) {
+        this.bufferSize = bufferSize;
+        this.bufferCount = bufferCount;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        entryIndex = executionContext.getInt(getExecutionContextKey(ENTRY_INDEX_KEY), 0);
+        entryItemCount = executionContext.getInt(getExecutionContextKey(ENTRY_READ_COUNT_KEY), 0);
+        super.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (isSaveState()) {
+            executionContext.putInt(getExecutionContextKey(ENTRY_INDEX_KEY), entryIndex);
+            executionContext.putInt(getExecutionContextKey(ENTRY_READ_COUNT_KEY), entryItemCount);
+        }
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        if (resource == null || !resource.exists()) {
+            throw new ItemStreamException("Input resource must exist: " + resource);
+        }
+        if (resource.getFilename() != null && resource.getFilename().toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            zipFile = new ZipFile(resource.getFile());
+            entries = new ArrayList<>();
+            Enumeration<? extends ZipEntry> all = zipFile.entries();
+            while (all.hasMoreElements()) {
+                ZipEntry entry = all.nextElement();
+                if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(".xml")) {
+                    entries.add(entry);
+                }
+            }
+        } else {
+            entries = null;
+        }
+        if (entryIndex > 0 || entryItemCount > 0) {
+            System.out.println("Resuming " + resource.getFilename() + " at entry " + entryIndex + ", item "
+                    + entryItemCount + ".");
+        }
+        openEntry(entryItemCount);
+    }
+
+    // Positioned by entry in doOpen, the overall item count is only bookkeeping
+    @Override
+    protected void jumpToItem(int itemIndex) {
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        while (entryReader != null) {
+            T item;
+            try {
+                item = entryReader.read();
+            } catch (ParseException e) {
+                entryItemCount++; // The entry reader moved past the record, a restart replays it as read
+                throw e;
+            }
+            if (item != null) {
+                entryItemCount++;
+                return item;
+            }
+            closeEntry();
+            entryIndex++;
+            entryItemCount = 0;
+            openEntry(0);
+        }
+        return null;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        try {
+            closeEntry();
+            if (zipFile != null) {
+                zipFile.close();
+            }
+        } finally {
+            zipFile = null;
+            entries = null;
+        }
+    }
+
+    private void openEntry(int skipItems) throws Exception {
+        int entryCount = entries != null ? entries.size() : 1;
+        if (entryIndex >= entryCount) {
+            return;
+        }
+        String name = entries != null ? resource.getFilename() + "!" + entries.get(entryIndex).getName()
+                : resource.getFilename();
+        InputStream compressed = entries != null ? zipFile.getInputStream(entries.get(entryIndex))
+                : new GZIPInputStream(resource.getInputStream(), bufferSize);
+        InputStream inflated = new ReadAheadInputStream(compressed, name, bufferSize, bufferCount);
+        entryReader = entryReaderFactory.get();
+        entryReader.setResource(new InputStreamResource(inflated, name));
+        entryReader.setRestartFromOffset(false);
+        ExecutionContext entryContext = new ExecutionContext();
+        if (skipItems > 0) {
+            entryContext.putInt(entryReader.getExecutionContextKey("read.count"), skipItems); // Replayed on open
+        }
+        entryReader.open(entryContext);
+    }
+
+    private void closeEntry() {
+        if (entryReader != null) {
+            try {
+                entryReader.close();
+            } finally {
+                entryReader = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.batch.demo.reader;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+// Outermost reader of a partition: runs onClose once the delegate has closed its file. The step closes its
+// streams only after its StepExecutionListeners ran, so this is the first point at which the file may be moved
+// (Windows refuses to move an open file).
+public class FileHandoverItemReader<T> implements ItemStreamReader<T> {
+
+    private final ItemStreamReader<T> delegate;
+    private final Runnable onClose;
+
+    public FileHandoverItemReader(ItemStreamReader<T> delegate, Runnable onClose) {
+        this.delegate = delegate;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public T read() throws Exception {
+        return delegate.read();
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.update(executionContext);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        try {
+            delegate.close();
+        } finally {
+            onClose.run();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.batch.demo.reader;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ParseException;
+import org.springframework.oxm.XmlMappingException;
+
+import com.example.batch.demo.chunk.ChunkSkips;
+import com.example.batch.demo.file.FileLifecycleManager;
+import com.example.batch.demo.file.QuarantineLog;
+
+// Fault-tolerant read: a record the delegate cannot map (ParseException from the cursor reader, a JAXB
+// XmlMappingException from StaxEventItemReader, both thrown once the reader is past the record) goes to the
+// file's quarantine output with the reason and counts as a read skip of the partition once the chunk commits
+// (see ChunkSkips); reading goes on with the next record. Malformed XML still fails the step, a parser cannot
+// find the next record after it.
+public class QuarantiningItemReader<T> implements ItemStreamReader<T> {
+
+    private final ItemStreamReader<T> delegate;
+    private final QuarantineLog quarantineLog;
+    private final int skipLimit;
+
+    public QuarantiningItemReader(ItemStreamReader<T> delegate, QuarantineLog quarantineLog, int skipLimit) {
+        this.delegate = delegate;
+        this.quarantineLog = quarantineLog;
+        this.skipLimit = skipLimit;
+    }
+
+    @Override
+    public T read() throws Exception {
+        while (true) {
+            try {
+                return delegate.read();
+            } catch (ParseException | XmlMappingException e) {
+                StepExecution partition = StepSynchronizationManager.getContext().getStepExecution();
+                ChunkSkips.readSkip(partition, skipLimit, e);
+                quarantineLog.reject(partition.getExecutionContext().getString(FileLifecycleManager.FILE_NAME_KEY),
+                        "unreadable: " + e.getMessage(), null);
+            }
+        }
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.update(executionContext);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        delegate.close();
+    }
+}
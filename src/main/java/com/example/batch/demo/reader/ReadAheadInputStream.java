@@ -0,0 +1,118 @@
+package com.example.batch.demo.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Reads a stream on its own thread into a bounded queue of buffers, so producing the bytes (e.g. inflating
+// a compressed file) overlaps with consuming them (parsing). The producer blocks while all buffers are full,
+// so at most bufferCount * bufferSize bytes are held; buffers are recycled instead of allocated per read.
+class ReadAheadInputStream extends InputStream {
+
+    private static final Chunk END = new Chunk(0);
+
+    private final InputStream source;
+    private final BlockingQueue<Chunk> filled;
+    private final BlockingQueue<Chunk> free;
+    private final Thread producer;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private Chunk current;
+    private int position;
+
+    ReadAheadInputStream(InputStream source, String name, int bufferSize, int bufferCount) {
+        this.source = source;
+        this.filled = new ArrayBlockingQueue<>(bufferCount + 1);
+        this.free = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            free.add(new Chunk(bufferSize));
+        }
+        producer = new Thread(this::produce, "read-ahead-" + name);
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (current == null || position == current.length) {
+            if (current != null && current != END) {
+                free.offer(current);
+            }
+            current = take();
+            position = 0;
+        }
+        if (current == END) {
+            if (failure != null) {
+                throw failure;
+            }
+            return -1;
+        }
+        int read = Math.min(length, current.length - position);
+        System.arraycopy(current.data, position, buffer, offset, read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            producer.interrupt();
+            free.clear();
+            filled.clear();
+        }
+    }
+
+    private Chunk take() throws IOException {
+        try {
+            return filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for input");
+        }
+    }
+
+    private void produce() {
+        try (InputStream in = source) {
+            while (!closed) {
+                Chunk chunk = free.poll(100, TimeUnit.MILLISECONDS);
+                if (chunk == null) {
+                    continue; // All buffers are waiting to be parsed
+                }
+                chunk.length = in.readNBytes(chunk.data, 0, chunk.data.length);
+                if (chunk.length == 0) {
+                    break;
+                }
+                filled.put(chunk);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return; // Closed by the consumer
+        }
+        filled.offer(END);
+    }
+
+    private static class Chunk {
+
+        private final byte[] data;
+        private int length;
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+}
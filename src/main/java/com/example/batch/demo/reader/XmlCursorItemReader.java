@@ -0,0 +1,386 @@
+package com.example.batch.demo.reader;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ParseException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.batch.item.xml.StaxEventItemReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ClassUtils;
+
+// Reads flat <fragment><field>value</field>...</fragment> records straight off an XMLStreamReader cursor.
+// No XMLEvent objects or JAXB unmarshalling: each child element's text goes to its field mapper,
+// elements without a mapper are skipped (as JAXB ignores unknown elements). A field its mapper rejects (e.g. a
+// non-numeric <age>) fails the read with a ParseException after the rest of the fragment has been consumed, so
+// the next read continues with the next record.
+// On top of the item count, each checkpoint records the byte offset just past the last item read, so a
+// restart seeks straight there instead of parsing and discarding every item before it. The offset is found
+// by XmlFragmentScanner over the bytes read since the previous checkpoint, once per chunk rather than per
+// item, and the context only gains one long.
+// With a byte range (setRange) the reader only sees the fragments starting inside it, so the partitions of
+// one large file can be read in parallel.
+public class XmlCursorItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+    private static final String BYTE_OFFSET_KEY = "byte.offset";
+
+    private final String fragmentRootElementName;
+    private final Supplier<T> itemFactory;
+    private final Map<String, BiConsumer<T, String>> fieldMappers;
+
+    private XMLInputFactory inputFactory;
+    private Resource resource;
+    private boolean strict = true;
+    private boolean restartFromOffset = true;
+    private long rangeStart;
+    private long rangeEnd = -1;
+
+    private InputStream inputStream;
+    private XMLStreamReader cursor;
+
+    // Offset checkpoints: null when the resource is not a file or its encoding is not ASCII-compatible
+    private FileChannel scanChannel;
+    private XmlFragmentScanner scanner;
+    private long resumeOffset = -1;
+    private long checkpointOffset;
+    // Fragments read and checkpointed; unlike the item count, a read that hits the end of the file does not count
+    private int fragmentCount;
+    private int checkpointFragmentCount;
+
+    public XmlCursorItemReader(String fragmentRootElementName, Supplier<T> itemFactory,
+                               Map<String, BiConsumer<T, String>> fieldMappers) {
+        this.fragmentRootElementName = fragmentRootElementName;
+        this.itemFactory = itemFactory;
+        this.fieldMappers = fieldMappers;
+        // Same execution context keys as StaxEventItemReader, so either reader can restart the other's run
+        setName(ClassUtils.getShortName(StaxEventItemReader.class));
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    public void setStrict(boolean strict) {
+        this.strict = strict;
+    }
+
+    // false restarts by replaying up to the saved item count only, as StaxEventItemReader does
+    public void setRestartFromOffset(boolean restartFromOffset) {
+        this.restartFromOffset = restartFromOffset;
+    }
+
+    // Reads the fragments in [start, end), both fragment boundaries as returned by XmlFragmentScanner.split
+    public void setRange(long start, long end) {
+        this.rangeStart = start;
+        this.rangeEnd = end;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        String key = getExecutionContextKey(BYTE_OFFSET_KEY);
+        resumeOffset = restartFromOffset && executionContext.containsKey(key) ? executionContext.getLong(key) : -1;
+        super.open(executionContext);
+        fragmentCount = getCurrentItemCount();
+        // After a replay by item count, the first checkpoint scans from the start of the file
+        checkpointFragmentCount = resumeOffset > 0 ? fragmentCount : 0;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (!isSaveState()) {
+            return;
+        }
+        String key = getExecutionContextKey(BYTE_OFFSET_KEY);
+        if (scanner != null && fragmentCount > checkpointFragmentCount) {
+            try {
+                long offset = scanner.skipFragments(checkpointOffset, fragmentCount - checkpointFragmentCount);
+                if (offset < 0) {
+                    throw new IOException("fewer <" + fragmentRootElementName + "> elements than items read");
+                }
+                checkpointOffset = offset;
+                checkpointFragmentCount = fragmentCount;
+            } catch (IOException e) {
+                System.err.println("Cannot checkpoint the byte offset of " + resource + ", restarts will replay it: "
+                        + e.getMessage());
+                closeScanner();
+            }
+        }
+        if (scanner != null) {
+            executionContext.putLong(key, checkpointOffset);
+        } else {
+            executionContext.remove(key);
+        }
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        if (resource == null || !resource.exists()) {
+            if (strict) {
+                throw new ItemStreamException("Input resource must exist (reader is in 'strict' mode): " + resource);
+            }
+            System.out.println("Input resource does not exist: " + resource);
+            return;
+        }
+        if (inputFactory == null) {
+            inputFactory = XMLInputFactory.newInstance();
+            inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        }
+        Path path = resource.isFile() ? resource.getFile().toPath() : null;
+        if (restartFromOffset && path != null) {
+            openScanner(path);
+        }
+        if (scanner == null || resumeOffset <= 0) {
+            resumeOffset = -1;
+        }
+        if (rangeEnd >= 0 || resumeOffset > 0) {
+            if (path == null) {
+                throw new ItemStreamException("Byte ranges need a file resource: " + resource);
+            }
+            openAt(path, resumeOffset > 0 ? resumeOffset : rangeStart);
+            return;
+        }
+        checkpointOffset = 0;
+        inputStream = new BufferedInputStream(resource.getInputStream(), 64 * 1024);
+        cursor = inputFactory.createXMLStreamReader(inputStream);
+        if (scanner != null && !isAsciiCompatible(cursor.getEncoding())) {
+            closeScanner();
+        }
+    }
+
+    // Starts at a fragment boundary: the document's prolog and root start tag, the file's bytes from offset to the
+    // end of the range, and the root end tag if the range stops before the end of the file, so the parser sees
+    // a well-formed document
+    private void openAt(Path path, long offset) throws Exception {
+        String encoding;
+        String rootStartTag;
+        String rootEndTag;
+        try (InputStream head = resource.getInputStream()) {
+            XMLStreamReader headCursor = inputFactory.createXMLStreamReader(head);
+            try {
+                headCursor.nextTag();
+                encoding = headCursor.getEncoding();
+                rootStartTag = startTag(headCursor);
+                rootEndTag = "</" + qualifiedName(headCursor.getPrefix(), headCursor.getLocalName()) + ">";
+            } finally {
+                headCursor.close();
+            }
+        }
+        if (!isAsciiCompatible(encoding)) {
+            throw new ItemStreamException("Cannot read " + resource + " from a byte offset, encoding " + encoding);
+        }
+        Charset charset = Charset.forName(encoding);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        long end = rangeEnd >= 0 ? Math.min(rangeEnd, channel.size()) : channel.size();
+        InputStream content = new LimitedInputStream(Channels.newInputStream(channel.position(offset)), end - offset);
+        if (offset > 0) {
+            byte[] prefix = ("<?xml version=\"1.0\" encoding=\"" + charset.name() + "\"?>" + rootStartTag)
+                    .getBytes(charset);
+            content = new SequenceInputStream(new ByteArrayInputStream(prefix), content);
+        }
+        if (end < channel.size()) {
+            content = new SequenceInputStream(content, new ByteArrayInputStream(rootEndTag.getBytes(charset)));
+        }
+        inputStream = new BufferedInputStream(content, 64 * 1024);
+        cursor = inputFactory.createXMLStreamReader(inputStream);
+        checkpointOffset = offset;
+        if (resumeOffset > 0) {
+            System.out.println("Resuming " + resource.getFilename() + " at byte " + offset + ".");
+        }
+    }
+
+    private void openScanner(Path path) throws IOException {
+        scanChannel = FileChannel.open(path, StandardOpenOption.READ);
+        scanner = new XmlFragmentScanner(fragmentRootElementName, scanChannel, false);
+    }
+
+    private void closeScanner() {
+        try {
+            if (scanChannel != null) {
+                scanChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing " + resource + ": " + e.getMessage());
+        } finally {
+            scanChannel = null;
+            scanner = null;
+        }
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        if (cursor == null || !moveToNextFragment()) {
+            return null;
+        }
+        T item = itemFactory.get();
+        while (cursor.hasNext()) {
+            int event = cursor.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String field = cursor.getLocalName();
+                BiConsumer<T, String> mapper = fieldMappers.get(field);
+                if (mapper == null) {
+                    skipElement();
+                    continue;
+                }
+                String text = cursor.getElementText();
+                try {
+                    mapper.accept(item, text);
+                } catch (RuntimeException e) {
+                    skipElement(); // The rest of the fragment
+                    fragmentCount++;
+                    throw new ParseException("Unreadable <" + fragmentRootElementName + "> " + getCurrentItemCount()
+                            + " in " + resource + ": <" + field + "> '" + text + "': " + e, e);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT
+                    && fragmentRootElementName.equals(cursor.getLocalName())) {
+                fragmentCount++;
+                return item;
+            }
+        }
+        throw new ItemStreamException("Unexpected end of document inside <" + fragmentRootElementName + "> in " + resource);
+    }
+
+    // Restart without a byte offset: count fragment start tags instead of mapping the items being skipped
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        if (resumeOffset > 0) {
+            return; // Already positioned after the last committed item
+        }
+        for (int i = 0; i < itemIndex; i++) {
+            if (cursor == null || !moveToNextFragment()) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        try {
+            if (cursor != null) {
+                cursor.close();
+            }
+            if (inputStream != null) {
+                inputStream.close();
+            }
+        } finally {
+            cursor = null;
+            inputStream = null;
+            closeScanner();
+        }
+    }
+
+    // Advances to the next <fragmentRootElementName> start tag, false at end of document
+    private boolean moveToNextFragment() throws XMLStreamException {
+        while (cursor.hasNext()) {
+            if (cursor.next() == XMLStreamConstants.START_ELEMENT
+                    && fragmentRootElementName.equals(cursor.getLocalName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The root element's start tag as written in the document, with its namespace declarations and attributes
+    private static String startTag(XMLStreamReader cursor) {
+        StringBuilder tag = new StringBuilder("<").append(qualifiedName(cursor.getPrefix(), cursor.getLocalName()));
+        for (int i = 0; i < cursor.getNamespaceCount(); i++) {
+            String prefix = cursor.getNamespacePrefix(i);
+            tag.append(' ').append(prefix == null || prefix.isEmpty() ? "xmlns" : "xmlns:" + prefix)
+                    .append("=\"").append(escape(cursor.getNamespaceURI(i))).append('"');
+        }
+        for (int i = 0; i < cursor.getAttributeCount(); i++) {
+            tag.append(' ').append(qualifiedName(cursor.getAttributePrefix(i), cursor.getAttributeLocalName(i)))
+                    .append("=\"").append(escape(cursor.getAttributeValue(i))).append('"');
+        }
+        return tag.append('>').toString();
+    }
+
+    private static String qualifiedName(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+    }
+
+    // Markup bytes mean the same in the encoding as in ASCII, which the byte-level scanner relies on
+    private static boolean isAsciiCompatible(String encoding) {
+        try {
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            String markup = "<>/!?-[]'\":= \t\r\nabcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+            return Arrays.equals(markup.getBytes(charset), markup.getBytes(StandardCharsets.US_ASCII));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    // Skips the current element and all of its children
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && cursor.hasNext()) {
+            int event = cursor.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    // The first limit bytes of a stream
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
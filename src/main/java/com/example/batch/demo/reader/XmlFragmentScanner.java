@@ -0,0 +1,218 @@
+package com.example.batch.demo.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Finds the boundaries of <fragment> elements in the raw bytes of an XML file, without parsing it.
+// Comments, CDATA sections, processing instructions and declarations are skipped and quoted attribute
+// values are honoured, so a boundary is only ever found where the parser sees one. Works on any
+// ASCII-compatible encoding (UTF-8, ISO-8859-x, ...), where markup bytes cannot occur inside other characters.
+// Short scans (checkpoints) read small windows into a reused buffer; whole-file scans (splitting) map the
+// file in large windows instead, so the bytes are never copied.
+public class XmlFragmentScanner {
+
+    private static final int READ_WINDOW = 64 * 1024;
+    private static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+    private final byte[] localName;
+    private final FileChannel channel;
+    private final boolean mapped;
+    private ByteBuffer window;
+    private long windowStart = -1;
+    private int windowLength;
+    private boolean selfClosing;
+
+    public XmlFragmentScanner(String fragmentRootElementName, FileChannel channel, boolean mapped) {
+        this.localName = fragmentRootElementName.getBytes(StandardCharsets.US_ASCII);
+        this.channel = channel;
+        this.mapped = mapped;
+        this.window = mapped ? null : ByteBuffer.allocate(READ_WINDOW);
+    }
+
+    // Start offsets of up to parts byte ranges of about equal size: the first one starts at 0, every other one
+    // at a top-level fragment start tag, so each range holds whole fragments. Fewer ranges if the file has
+    // fewer fragments.
+    public List<Long> split(int parts) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        starts.add(0L);
+        long size = channel.size();
+        long from = 0;
+        for (int i = 1; i < parts; i++) {
+            long start = scan(from, Integer.MAX_VALUE, Math.max(from + 1, size * i / parts));
+            if (start < 0) {
+                break;
+            }
+            starts.add(start);
+            from = start;
+        }
+        return starts;
+    }
+
+    // Offset just past the end of the count-th fragment that ends after from, or -1 if the file ends first.
+    // from must be outside of any markup, e.g. 0 or an offset returned before.
+    public long skipFragments(long from, int count) throws IOException {
+        return scan(from, count, Long.MAX_VALUE);
+    }
+
+    // Stops past the count-th fragment end, or at the first top-level fragment start tag at or after startAfter
+    private long scan(long from, int count, long startAfter) throws IOException {
+        long position = from;
+        int depth = 0;
+        int found = 0;
+        while (true) {
+            int b = at(position);
+            if (b < 0) {
+                return -1;
+            }
+            if (b != '<') {
+                position++;
+                continue;
+            }
+            int next = at(position + 1);
+            if (next == '!') {
+                position = skipDeclaration(position);
+            } else if (next == '?') {
+                position = skipPast(position + 2, "?>");
+            } else {
+                boolean endTag = next == '/';
+                long tagStart = position;
+                long nameStart = position + (endTag ? 2 : 1);
+                long nameEnd = nameEnd(nameStart);
+                boolean fragment = nameEnd > 0 && isFragmentName(nameStart, nameEnd);
+                position = nameEnd < 0 ? -1 : skipTag(nameEnd);
+                if (position >= 0 && fragment) {
+                    if (!endTag && depth == 0 && tagStart >= startAfter) {
+                        return tagStart;
+                    }
+                    if (endTag) {
+                        depth--;
+                    } else if (!selfClosing) {
+                        depth++;
+                    }
+                    if (depth == 0 && ++found == count) {
+                        return position;
+                    }
+                }
+            }
+            if (position < 0) {
+                return -1;
+            }
+        }
+    }
+
+    // <!-- ... -->, <![CDATA[ ... ]]> or <!DOCTYPE ... [ ... ]>
+    private long skipDeclaration(long position) throws IOException {
+        if (startsWith(position, "<!--")) {
+            return skipPast(position + 4, "-->");
+        }
+        if (startsWith(position, "<![CDATA[")) {
+            return skipPast(position + 9, "]]>");
+        }
+        int brackets = 0;
+        for (long p = position + 2; ; p++) {
+            int b = at(p);
+            if (b < 0) {
+                return -1;
+            } else if (b == '[') {
+                brackets++;
+            } else if (b == ']') {
+                brackets--;
+            } else if (b == '>' && brackets <= 0) {
+                return p + 1;
+            }
+        }
+    }
+
+    // Past the closing '>' of a tag whose name ends at position; quoted attribute values may contain '>'
+    private long skipTag(long position) throws IOException {
+        int quote = 0;
+        int previous = 0;
+        for (long p = position; ; p++) {
+            int b = at(p);
+            if (b < 0) {
+                return -1;
+            }
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                selfClosing = previous == '/';
+                return p + 1;
+            }
+            previous = b;
+        }
+    }
+
+    private long skipPast(long position, String terminator) throws IOException {
+        for (long p = position; ; p++) {
+            int b = at(p);
+            if (b < 0) {
+                return -1;
+            }
+            if (b == terminator.charAt(0) && startsWith(p, terminator)) {
+                return p + terminator.length();
+            }
+        }
+    }
+
+    private long nameEnd(long position) throws IOException {
+        for (long p = position; ; p++) {
+            int b = at(p);
+            if (b < 0) {
+                return -1;
+            }
+            if (b == '>' || b == '/' || b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+                return p;
+            }
+        }
+    }
+
+    // The local part (after any namespace prefix) equals the fragment's name
+    private boolean isFragmentName(long nameStart, long nameEnd) throws IOException {
+        long localStart = nameEnd - localName.length;
+        if (localStart < nameStart || (localStart > nameStart && at(localStart - 1) != ':')) {
+            return false;
+        }
+        for (int i = 0; i < localName.length; i++) {
+            if (at(localStart + i) != localName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(long position, String prefix) throws IOException {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (at(position + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Byte at the given offset, -1 past the end of the file; reads or maps the file one window at a time
+    private int at(long position) throws IOException {
+        if (position < windowStart || position >= windowStart + windowLength) {
+            windowStart = position;
+            if (mapped) {
+                long length = Math.min(MAP_WINDOW, channel.size() - position);
+                window = length > 0 ? channel.map(FileChannel.MapMode.READ_ONLY, position, length) : null;
+                windowLength = (int) Math.max(0, length);
+            } else {
+                window.clear();
+                windowLength = Math.max(0, channel.read(window, position));
+            }
+            if (windowLength == 0) {
+                return -1;
+            }
+        }
+        return window.get((int) (position - windowStart)) & 0xff;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.batch.demo.writer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.batch.demo.metrics.BatchMetrics;
+
+// Ids of the values of a dimension table (id, value), e.g. subject (id, name), with a bounded cache in front.
+// The cache is warmed with up to maxSize rows when a step starts; a chunk's values missing from it are then
+// looked up in one SELECT ... IN per 500 values, and the values the table does not hold yet are inserted as one
+// batch in a transaction of their own, so they are visible to the other partitions at once and stay when the
+// chunk rolls back. Least recently used values are evicted beyond maxSize, and an entry older than ttl is
+// looked up again, so edits made to the table directly show up without a restart.
+public class DimensionTable {
+
+    private static final int LOOKUP_BATCH_SIZE = 500;
+    private static final int INSERT_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate insertTransaction;
+    private final String table;
+    private final String selectSql;
+    private final String findSql;
+    private final String insertSql;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<String, CachedId> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private long warmedAt;
+
+    public DimensionTable(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, String table,
+                          String valueColumn, int maxSize, long ttlMillis, BatchMetrics batchMetrics) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.table = table;
+        this.selectSql = "SELECT id, " + valueColumn + " FROM " + table;
+        this.findSql = selectSql + " WHERE " + valueColumn + " IN (:values)";
+        this.insertSql = "INSERT INTO " + table + " (" + valueColumn + ") SELECT ? FROM DUAL WHERE NOT EXISTS "
+                + "(SELECT 1 FROM " + table + " WHERE " + valueColumn + " = ?)";
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        // Least recently used values are evicted first
+        this.cache = new LinkedHashMap<String, CachedId>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedId> eldest) {
+                return size() > maxSize;
+            }
+        };
+        batchMetrics.monitorDimension(table, hits::sum, misses::sum, inserted::sum, this::size);
+    }
+
+    // Loads the table into the cache, unless it was loaded within the ttl (by another partition of the step)
+    public void warm() {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            if (warmedAt != 0 && !isExpired(warmedAt, now)) {
+                return;
+            }
+            warmedAt = now;
+        }
+        Map<String, CachedId> rows = new HashMap<>();
+        jdbcTemplate.query(selectSql, resultSet -> {
+            if (rows.size() < maxSize) {
+                rows.put(resultSet.getString(2), new CachedId(resultSet.getLong(1), now));
+            }
+        });
+        synchronized (cache) {
+            cache.putAll(rows);
+        }
+        System.out.println("Dimension " + table + " warmed with " + rows.size() + " values in "
+                + (System.currentTimeMillis() - now) + " ms.");
+    }
+
+    // Id of each of the values, inserting the values the table does not hold yet
+    public Map<String, Long> resolve(Collection<String> values) {
+        Map<String, Long> ids = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            for (String value : values) {
+                CachedId cached = cache.get(value);
+                if (cached != null && !isExpired(cached.loadedAt, now)) {
+                    ids.put(value, cached.id);
+                } else {
+                    missing.add(value);
+                }
+            }
+        }
+        hits.add(ids.size());
+        misses.add(missing.size());
+        if (missing.isEmpty()) {
+            return ids;
+        }
+        Map<String, Long> found = find(missing);
+        for (int attempt = 1; found.size() < missing.size(); attempt++) {
+            List<String> unknown = missing.stream().filter(value -> !found.containsKey(value))
+                    .collect(Collectors.toList());
+            try {
+                insert(unknown);
+            } catch (DuplicateKeyException e) {
+                // Another partition inserted one of the values first; the others are inserted again below
+                if (attempt >= INSERT_ATTEMPTS) {
+                    throw e;
+                }
+            }
+            found.putAll(find(unknown));
+            if (found.size() < missing.size() && attempt >= INSERT_ATTEMPTS) {
+                throw new IllegalStateException("Values missing from dimension " + table + " after insert: "
+                        + unknown.stream().filter(value -> !found.containsKey(value)).collect(Collectors.toList()));
+            }
+        }
+        synchronized (cache) {
+            found.forEach((value, id) -> cache.put(value, new CachedId(id, now)));
+        }
+        ids.putAll(found);
+        return ids;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private Map<String, Long> find(List<String> values) {
+        Map<String, Long> ids = new HashMap<>();
+        for (int from = 0; from < values.size(); from += LOOKUP_BATCH_SIZE) {
+            List<String> batch = values.subList(from, Math.min(values.size(), from + LOOKUP_BATCH_SIZE));
+            namedParameterJdbcTemplate.query(findSql, new MapSqlParameterSource("values", batch),
+                    resultSet -> {
+                        ids.put(resultSet.getString(2), resultSet.getLong(1));
+                    });
+        }
+        return ids;
+    }
+
+    private void insert(List<String> values) {
+        List<Object[]> rows = values.stream().map(value -> new Object[] {value, value}).collect(Collectors.toList());
+        int[] counts = insertTransaction.execute(status -> jdbcTemplate.batchUpdate(insertSql, rows));
+        for (int count : counts) {
+            if (count > 0) {
+                inserted.add(count);
+            }
+        }
+    }
+
+    // A ttl of 0 keeps entries until they are evicted
+    private boolean isExpired(long loadedAt, long now) {
+        return ttlMillis > 0 && now - loadedAt >= ttlMillis;
+    }
+
+    private static class CachedId {
+
+        private final long id;
+        private final long loadedAt;
+
+        CachedId(long id, long loadedAt) {
+            this.id = id;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.batch.demo.writer;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.springframework.batch.item.ItemWriter;
+
+// Fills the dimension id columns of a chunk before it is written. The chunk's distinct values of a dimension
+// are resolved in one call to its DimensionTable, so a chunk costs at most one lookup and one insert round trip
+// per dimension however many items it holds, and none once its values are cached. Values are trimmed; an item
+// without a value gets no id.
+public class EnrichingItemWriter<T> implements ItemWriter<T> {
+
+    private final ItemWriter<T> delegate;
+    private final List<Lookup<T>> lookups;
+
+    public EnrichingItemWriter(ItemWriter<T> delegate, List<Lookup<T>> lookups) {
+        this.delegate = delegate;
+        this.lookups = lookups;
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        for (Lookup<T> lookup : lookups) {
+            Set<String> values = new HashSet<>();
+            for (T item : items) {
+                String value = lookup.value(item);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+            Map<String, Long> ids = values.isEmpty() ? Map.of() : lookup.table.resolve(values);
+            for (T item : items) {
+                String value = lookup.value(item);
+                lookup.idSetter.accept(item, value != null ? ids.get(value) : null);
+            }
+        }
+        delegate.write(items);
+    }
+
+    public static class Lookup<T> {
+
+        private final DimensionTable table;
+        private final Function<T, String> value;
+        private final BiConsumer<T, Long> idSetter;
+
+        public Lookup(DimensionTable table, Function<T, String> value, BiConsumer<T, Long> idSetter) {
+            this.table = table;
+            this.value = value;
+            this.idSetter = idSetter;
+        }
+
+        private String value(T item) {
+            String value = this.value.apply(item);
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.batch.demo.writer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Hands out primary keys from blocks reserved on a database sequence.
+// The sequence increments by blockSize, so each NEXT VALUE reserves [value, value + blockSize)
+// (the same "pooled-lo" layout Hibernate uses for the entities).
+public class IdBlockAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sequenceName;
+    private final int blockSize;
+
+    private long nextId;
+    private long blockEnd;
+
+    public IdBlockAllocator(JdbcTemplate jdbcTemplate, String sequenceName, int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceName = sequenceName;
+        this.blockSize = blockSize;
+    }
+
+    public synchronized long nextId() {
+        if (nextId >= blockEnd) {
+            Long blockStart = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequenceName, Long.class);
+            if (blockStart == null) {
+                throw new IllegalStateException("Sequence " + sequenceName + " returned no value");
+            }
+            nextId = blockStart;
+            blockEnd = blockStart + blockSize;
+        }
+        return nextId++;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.batch.demo.writer;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// In-memory set of the natural keys already stored in a table, warmed from the table at startup and
+// extended as chunks commit. A key found here is a duplicate for certain, so the writer drops the item before
+// it reaches the database. Once maxSize keys are held the index stops growing; keys it does not know about
+// still go to the MERGE, which stays correct, only no longer free.
+public class NaturalKeyIndex {
+
+    static final char SEPARATOR = '\u001f';
+
+    private final String table;
+    private final Set<String> keys = ConcurrentHashMap.newKeySet();
+    private final int maxSize;
+
+    public NaturalKeyIndex(JdbcTemplate jdbcTemplate, String table, List<String> keyColumns, int maxSize) {
+        this.table = table;
+        this.maxSize = maxSize;
+        long start = System.currentTimeMillis();
+        jdbcTemplate.query("SELECT " + String.join(", ", keyColumns) + " FROM " + table, resultSet -> {
+            if (keys.size() < maxSize) {
+                StringBuilder key = new StringBuilder();
+                for (int column = 1; column <= keyColumns.size(); column++) {
+                    if (column > 1) {
+                        key.append(SEPARATOR);
+                    }
+                    key.append(resultSet.getString(column));
+                }
+                keys.add(key.toString());
+            }
+        });
+        System.out.println("Key index of " + table + " warmed with " + keys.size() + " keys in "
+                + (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    public static String key(List<Object> values) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                key.append(SEPARATOR);
+            }
+            key.append(values.get(i));
+        }
+        return key.toString();
+    }
+
+    public boolean contains(String key) {
+        return keys.contains(key);
+    }
+
+    // Only called once the rows carrying these keys are committed
+    public void addAll(Iterable<String> committedKeys) {
+        for (String key : committedKeys) {
+            if (keys.size() >= maxSize) {
+                return;
+            }
+            keys.add(key);
+        }
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.batch.demo.writer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.batch.demo.file.FileCompletionHandler;
+import com.example.batch.demo.file.FileLifecycleManager;
+import com.example.batch.demo.file.QuarantineLog;
+
+// Bulk load, second half: once every partition of a file has committed, moves the file's staged rows into the
+// target table with one set-based statement (a MERGE on the natural key in upsert load mode, INSERT ... SELECT
+// otherwise) and deletes them from the staging table in the same transaction, so the target gets the whole file
+// or nothing of it. If the statement fails the staged rows stay where they are and the archiver retries the
+// merge alone, without reading the file again. Rows of other versions of the file are deleted as well.
+// In upsert mode the MERGE loads the first staged row of each natural key (repeated in the file, or staged by two
+// byte ranges of it) unless the key is loaded already, and the file's keys go to the NaturalKeyIndex only once
+// the merge committed: staged rows are not loaded rows.
+// The staging table has no constraints, so a row the target rejects only fails here. With a quarantine set
+// (fault-tolerant mode) a rejected merge is rolled back to a savepoint and merged again by halves of the file's
+// staged ids, like BisectingItemWriter; the rows that fail on their own go to the file's quarantine output and
+// the rest is merged. More than skip-limit of them fail the merge as before.
+public class StagingMerge implements FileCompletionHandler {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String table;
+    private final String stagingTable;
+    private final String loadSql;
+    private final String rangeLoadSql;
+    private final String idsSql;
+    private final String rowSql;
+    private final String deleteRowSql;
+    private final String deleteSql;
+    private final String keysSql;
+    private final NaturalKeyIndex keyIndex;
+    private QuarantineLog quarantineLog;
+    private Function<Map<String, Object>, String> recordFormat;
+    private int skipLimit;
+
+    // keyColumns null or empty inserts every staged row; keyIndex, if any, learns the merged keys
+    public StagingMerge(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, String table,
+                        String stagingTable, LinkedHashMap<String, String> columns, List<String> keyColumns,
+                        NaturalKeyIndex keyIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.table = table;
+        this.stagingTable = stagingTable;
+        boolean upsert = keyColumns != null && !keyColumns.isEmpty();
+        String fileRows = StagingItemWriter.FILE_COLUMN + " = ? AND " + StagingItemWriter.FILE_VERSION_COLUMN
+                + " = ?";
+        String fileRowRange = fileRows + " AND id BETWEEN ? AND ?";
+        this.loadSql = upsert ? mergeSql(table, stagingTable, columns, keyColumns, fileRows)
+                : insertSql(table, stagingTable, columns, fileRows);
+        this.rangeLoadSql = upsert ? mergeSql(table, stagingTable, columns, keyColumns, fileRowRange)
+                : insertSql(table, stagingTable, columns, fileRowRange);
+        this.idsSql = "SELECT id FROM " + stagingTable + " WHERE " + fileRows + " ORDER BY id";
+        this.rowSql = "SELECT " + String.join(", ", columns.keySet()) + " FROM " + stagingTable + " WHERE id = ?";
+        this.deleteRowSql = "DELETE FROM " + stagingTable + " WHERE id = ?";
+        this.keysSql = upsert && keyIndex != null ? "SELECT DISTINCT " + String.join(", ", keyColumns) + " FROM "
+                + stagingTable + " WHERE " + fileRows : null;
+        this.keyIndex = keysSql != null ? keyIndex : null;
+        this.deleteSql = "DELETE FROM " + stagingTable + " WHERE " + StagingItemWriter.FILE_COLUMN + " = ?";
+    }
+
+    // Quarantines the staged rows the target rejects instead of failing the merge; recordFormat renders a staged
+    // row (by column) as a record of the feed
+    public void setQuarantine(QuarantineLog quarantineLog, Function<Map<String, Object>, String> recordFormat,
+                              int skipLimit) {
+        this.quarantineLog = quarantineLog;
+        this.recordFormat = recordFormat;
+        this.skipLimit = skipLimit;
+    }
+
+    @Override
+    public void complete(ExecutionContext fileContext) {
+        String fileName = fileContext.getString(FileLifecycleManager.FILE_NAME_KEY);
+        String fileVersion = StagingItemWriter.fileVersion(fileContext);
+        long start = System.currentTimeMillis();
+        Set<String> keys = new HashSet<>();
+        int[] counts = transactionTemplate.execute(status -> {
+            int loaded;
+            if (quarantineLog == null) {
+                loaded = jdbcTemplate.update(loadSql, fileName, fileVersion);
+            } else {
+                Map<Long, DataIntegrityViolationException> rejected = new LinkedHashMap<>();
+                loaded = mergeIsolatingRejects(fileName, fileVersion, rejected);
+                rejected.forEach((id, e) -> reject(fileName, id, e));
+            }
+            if (keysSql != null) {
+                jdbcTemplate.query(keysSql, resultSet -> {
+                    int columnCount = resultSet.getMetaData().getColumnCount();
+                    List<Object> values = new ArrayList<>(columnCount);
+                    for (int column = 1; column <= columnCount; column++) {
+                        values.add(resultSet.getString(column));
+                    }
+                    keys.add(NaturalKeyIndex.key(values));
+                }, fileName, fileVersion);
+            }
+            return new int[] { loaded, jdbcTemplate.update(deleteSql, fileName) };
+        });
+        if (keyIndex != null) {
+            keyIndex.addAll(keys); // Committed
+        }
+        System.out.println("Merged " + counts[0] + " of " + counts[1] + " staged rows of " + fileName + " into "
+                + table + " in " + (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    // The file's rows in one statement; if the target rejects them, the rows that can be merged and the ids of
+    // the rows that cannot, bisecting under savepoints of the merge transaction's connection
+    private int mergeIsolatingRejects(String fileName, String fileVersion,
+                                      Map<Long, DataIntegrityViolationException> rejected) {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return merge(connection, fileName, fileVersion, null, rejected);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Savepoint failed merging " + fileName, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // ids null merges all of the file's rows
+    private int merge(Connection connection, String fileName, String fileVersion, List<Long> ids,
+                      Map<Long, DataIntegrityViolationException> rejected) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            int loaded = ids == null ? jdbcTemplate.update(loadSql, fileName, fileVersion)
+                    : jdbcTemplate.update(rangeLoadSql, fileName, fileVersion, ids.get(0), ids.get(ids.size() - 1));
+            connection.releaseSavepoint(savepoint);
+            return loaded;
+        } catch (DataIntegrityViolationException e) {
+            connection.rollback(savepoint);
+            if (ids == null) {
+                return merge(connection, fileName, fileVersion,
+                        jdbcTemplate.queryForList(idsSql, Long.class, fileName, fileVersion), rejected);
+            }
+            if (ids.size() == 1) {
+                rejected.put(ids.get(0), e);
+                if (rejected.size() > skipLimit) {
+                    throw e;
+                }
+                return 0;
+            }
+            int half = ids.size() / 2;
+            return merge(connection, fileName, fileVersion, ids.subList(0, half), rejected)
+                    + merge(connection, fileName, fileVersion, ids.subList(half, ids.size()), rejected);
+        }
+    }
+
+    // Quarantines a staged row and drops it, so its key is not indexed as loaded
+    private void reject(String fileName, long id, DataIntegrityViolationException e) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(rowSql, id);
+        jdbcTemplate.update(deleteRowSql, id);
+        Throwable cause = e.getMostSpecificCause();
+        quarantineLog.reject(fileName, "not merged: " + (cause.getMessage() != null ? cause.getMessage()
+                : cause.toString()), recordFormat.apply(row));
+    }
+
+    private static String insertSql(String table, String stagingTable, LinkedHashMap<String, String> columns,
+                                    String where) {
+        String names = String.join(", ", columns.keySet());
+        return "INSERT INTO " + table + " (" + names + ") SELECT " + names + " FROM " + stagingTable
+                + " WHERE " + where;
+    }
+
+    // Same shape as UpsertItemWriter.mergeSql (insert-if-absent), with the file's staged rows as the source,
+    // grouped by the natural key so that each key is merged once: the row with the lowest id wins
+    private static String mergeSql(String table, String stagingTable, LinkedHashMap<String, String> columns,
+                                   List<String> keyColumns, String where) {
+        String names = String.join(", ", columns.keySet());
+        String on = keyColumns.stream()
+                .map(column -> "t." + column + " = s." + column)
+                .collect(Collectors.joining(" AND "));
+        String values = columns.keySet().stream().map(column -> "s." + column).collect(Collectors.joining(", "));
+        return "MERGE INTO " + table + " t USING (SELECT " + names + " FROM (SELECT " + names
+                + ", ROW_NUMBER() OVER (PARTITION BY " + String.join(", ", keyColumns) + " ORDER BY id) AS key_row"
+                + " FROM " + stagingTable + " WHERE " + where + ") WHERE key_row = 1) s ON (" + on + ")"
+                + " WHEN NOT MATCHED THEN INSERT (" + names + ") VALUES (" + values + ")";
+    }
+}
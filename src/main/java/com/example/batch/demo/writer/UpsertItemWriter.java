@@ -0,0 +1,98 @@
+package com.example.batch.demo.writer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.batch.demo.metrics.BatchMetrics;
+
+// Idempotent write: items whose natural key is already in the NaturalKeyIndex (or repeated within the chunk)
+// are dropped, the rest goes to the delegate, a MERGE keyed on the natural key (see mergeSql). A loaded record is
+// never updated, whether its key was still in the index or not. The keys are
+// added to the index only after the chunk commits, so a rolled back chunk is never mistaken for a loaded one.
+public class UpsertItemWriter<T> implements ItemWriter<T> {
+
+    private final ItemWriter<T> delegate;
+    private final NaturalKeyIndex keyIndex;
+    private final Function<T, String> keyFunction;
+    private final BatchMetrics batchMetrics;
+
+    public UpsertItemWriter(ItemWriter<T> delegate, NaturalKeyIndex keyIndex, Function<T, String> keyFunction,
+                            BatchMetrics batchMetrics) {
+        this.delegate = delegate;
+        this.keyIndex = keyIndex;
+        this.keyFunction = keyFunction;
+        this.batchMetrics = batchMetrics;
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        List<T> fresh = new ArrayList<>(items.size());
+        Set<String> chunkKeys = new HashSet<>();
+        for (T item : items) {
+            String key = keyFunction.apply(item);
+            if (!keyIndex.contains(key) && chunkKeys.add(key)) {
+                fresh.add(item);
+            }
+        }
+        batchMetrics.recordDuplicatesSkipped(keyIndex.getTable(), items.size() - fresh.size());
+        if (fresh.isEmpty()) {
+            return;
+        }
+        delegate.write(fresh);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    keyIndex.addAll(chunkKeys);
+                }
+            });
+        } else {
+            keyIndex.addAll(chunkKeys);
+        }
+    }
+
+    // Builds a key function from the natural key columns, e.g. ["name", "age"], and the getter of each column
+    public static <T> Function<T, String> keyFunction(List<String> keyColumns, Map<String, Function<T, Object>> getters) {
+        List<Function<T, Object>> keyGetters = new ArrayList<>();
+        for (String column : keyColumns) {
+            Function<T, Object> getter = getters.get(column);
+            if (getter == null) {
+                throw new IllegalArgumentException("Unknown natural key column '" + column + "', expected one of "
+                        + getters.keySet());
+            }
+            keyGetters.add(getter);
+        }
+        return item -> {
+            List<Object> values = new ArrayList<>(keyGetters.size());
+            for (Function<T, Object> getter : keyGetters) {
+                values.add(getter.apply(item));
+            }
+            return NaturalKeyIndex.key(values);
+        };
+    }
+
+    // MERGE INTO table USING (one row of named parameters) ON (natural key) WHEN NOT MATCHED THEN INSERT, i.e.
+    // insert-if-absent; the column types are needed to type the parameters of the source row
+    public static String mergeSql(String table, LinkedHashMap<String, String> columnTypes, List<String> keyColumns) {
+        String source = columnTypes.entrySet().stream()
+                .map(column -> "CAST(:" + column.getKey() + " AS " + column.getValue() + ") AS " + column.getKey())
+                .collect(Collectors.joining(", "));
+        String on = keyColumns.stream()
+                .map(column -> "t." + column + " = s." + column)
+                .collect(Collectors.joining(" AND "));
+        String columns = String.join(", ", columnTypes.keySet());
+        String values = columnTypes.keySet().stream().map(column -> "s." + column).collect(Collectors.joining(", "));
+        return "MERGE INTO " + table + " t USING (SELECT " + source + ") s ON (" + on + ")"
+                + " WHEN NOT MATCHED THEN INSERT (" + columns + ") VALUES (" + values + ")";
+    }
+}
@@ -1,4 +1,4 @@
-CREATE TABLE BATCH_JOB_INSTANCE  (
+CREATE TABLE IF NOT EXISTS BATCH_JOB_INSTANCE  (
     JOB_INSTANCE_ID BIGINT  NOT NULL PRIMARY KEY ,
     VERSION BIGINT ,
     JOB_NAME VARCHAR(100) NOT NULL,
@@ -6,7 +6,7 @@ CREATE TABLE BATCH_JOB_INSTANCE  (
     constraint JOB_INST_UN unique (JOB_NAME, JOB_KEY)
 );
 
-CREATE TABLE BATCH_JOB_EXECUTION  (
+CREATE TABLE IF NOT EXISTS BATCH_JOB_EXECUTION  (
     JOB_EXECUTION_ID BIGINT  NOT NULL PRIMARY KEY ,
     VERSION BIGINT  ,
     JOB_INSTANCE_ID BIGINT NOT NULL,
@@ -22,7 +22,7 @@ CREATE TABLE BATCH_JOB_EXECUTION  (
     references BATCH_JOB_INSTANCE(JOB_INSTANCE_ID)
 );
 
-CREATE TABLE BATCH_JOB_EXECUTION_PARAMS  (
+CREATE TABLE IF NOT EXISTS BATCH_JOB_EXECUTION_PARAMS  (
     JOB_EXECUTION_ID BIGINT NOT NULL ,
     TYPE_CD VARCHAR(6) NOT NULL ,
     KEY_NAME VARCHAR(100) NOT NULL ,
@@ -35,7 +35,7 @@ CREATE TABLE BATCH_JOB_EXECUTION_PARAMS  (
     references BATCH_JOB_EXECUTION(JOB_EXECUTION_ID)
 );
 
-CREATE TABLE BATCH_STEP_EXECUTION  (
+CREATE TABLE IF NOT EXISTS BATCH_STEP_EXECUTION  (
     STEP_EXECUTION_ID BIGINT  NOT NULL PRIMARY KEY ,
     VERSION BIGINT NOT NULL,
     STEP_NAME VARCHAR(100) NOT NULL,
@@ -58,7 +58,7 @@ CREATE TABLE BATCH_STEP_EXECUTION  (
     references BATCH_JOB_EXECUTION(JOB_EXECUTION_ID)
 );
 
-CREATE TABLE BATCH_STEP_EXECUTION_CONTEXT  (
+CREATE TABLE IF NOT EXISTS BATCH_STEP_EXECUTION_CONTEXT  (
     STEP_EXECUTION_ID BIGINT NOT NULL PRIMARY KEY,
     SHORT_CONTEXT VARCHAR(2500) NOT NULL,
     SERIALIZED_CONTEXT CLOB ,
@@ -66,7 +66,7 @@ CREATE TABLE BATCH_STEP_EXECUTION_CONTEXT  (
     references BATCH_STEP_EXECUTION(STEP_EXECUTION_ID)
 );
 
-CREATE TABLE BATCH_JOB_EXECUTION_CONTEXT  (
+CREATE TABLE IF NOT EXISTS BATCH_JOB_EXECUTION_CONTEXT  (
     JOB_EXECUTION_ID BIGINT NOT NULL PRIMARY KEY,
     SHORT_CONTEXT VARCHAR(2500) NOT NULL,
     SERIALIZED_CONTEXT CLOB ,
@@ -74,31 +74,79 @@ CREATE TABLE BATCH_JOB_EXECUTION_CONTEXT  (
     references BATCH_JOB_EXECUTION(JOB_EXECUTION_ID)
 );
 
-CREATE TABLE BATCH_STEP_EXECUTION_SEQ (
-    ID BIGINT NOT NULL,
-    UNIQUE(ID)
-);
+CREATE SEQUENCE IF NOT EXISTS BATCH_STEP_EXECUTION_SEQ;
+CREATE SEQUENCE IF NOT EXISTS BATCH_JOB_EXECUTION_SEQ;
+CREATE SEQUENCE IF NOT EXISTS BATCH_JOB_SEQ;
 
-CREATE TABLE BATCH_JOB_EXECUTION_SEQ (
-    ID BIGINT NOT NULL,
-    UNIQUE(ID)
-);
+CREATE SEQUENCE IF NOT EXISTS student_seq START WITH 1 INCREMENT BY 50;
 
-CREATE TABLE BATCH_JOB_SEQ (
-    ID BIGINT NOT NULL,
-    UNIQUE(ID)
-);
+CREATE SEQUENCE IF NOT EXISTS teacher_seq START WITH 1 INCREMENT BY 50;
 
-CREATE TABLE student (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+CREATE TABLE IF NOT EXISTS student (
+    id BIGINT PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
-    age INT NOT NULL
+    age INT NOT NULL,
+    grade VARCHAR(255),
+    grade_id BIGINT
 );
 
-CREATE TABLE teacher (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+CREATE TABLE IF NOT EXISTS teacher (
+    id BIGINT PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     age INT NOT NULL,
     subject VARCHAR(255) NOT NULL,
+    subject_id BIGINT,
     experience INT NOT NULL
 );
+
+-- Dimension tables the writers resolve the feeds' values against (DimensionTable); values not found are added
+CREATE TABLE IF NOT EXISTS subject (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    CONSTRAINT subject_name_un UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS grade (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    code VARCHAR(255) NOT NULL,
+    CONSTRAINT grade_code_un UNIQUE (code)
+);
+
+CREATE TABLE IF NOT EXISTS BATCH_FILE_CLAIM (
+    FILE_NAME VARCHAR(1000) NOT NULL PRIMARY KEY,
+    NODE_ID VARCHAR(100) NOT NULL,
+    CLAIMED_AT TIMESTAMP NOT NULL,
+    HEARTBEAT_AT TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS BATCH_FILE_CLAIM_NODE_IDX ON BATCH_FILE_CLAIM (NODE_ID);
+
+CREATE TABLE IF NOT EXISTS BATCH_INGESTED_FILE (
+    FINGERPRINT VARCHAR(128) NOT NULL PRIMARY KEY,
+    FILE_NAME VARCHAR(1000) NOT NULL,
+    FILE_SIZE BIGINT NOT NULL,
+    INGESTED_AT TIMESTAMP NOT NULL
+);
+
+-- Staging tables of the bulk load (writer mode "staging"): the target's columns plus the source file, and
+-- deliberately no keys, indexes or constraints; rows only stay here until their file is merged
+CREATE TABLE IF NOT EXISTS student_staging (
+    id BIGINT,
+    name VARCHAR(255),
+    age INT,
+    grade VARCHAR(255),
+    grade_id BIGINT,
+    batch_file VARCHAR(1000) NOT NULL,
+    batch_file_version VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS teacher_staging (
+    id BIGINT,
+    name VARCHAR(255),
+    age INT,
+    subject VARCHAR(255),
+    experience INT,
+    subject_id BIGINT,
+    batch_file VARCHAR(1000) NOT NULL,
+    batch_file_version VARCHAR(100) NOT NULL
+);
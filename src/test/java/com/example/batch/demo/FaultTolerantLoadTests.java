@@ -0,0 +1,53 @@
+package com.example.batch.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = {
+        "student.job.chunk-size=8",
+        "batch.chunk.min-size=8",
+        "batch.reader.mode=cursor",
+        "batch.writer.mode=jpa",
+        "batch.load.mode=insert",
+        "batch.fault-tolerance.enabled=true"
+})
+class FaultTolerantLoadTests extends StudentJobTestSupport {
+
+    @Test
+    void badRecordsAreQuarantinedAndTheRestOfTheFileCommits() throws Exception {
+        StringBuilder students = new StringBuilder("<students>\n");
+        for (int i = 1; i <= 20; i++) {
+            String name = i == 7 ? "x".repeat(300) : "Tolerated student " + i; // Longer than the name column
+            String age = i == 12 ? "twelve" : String.valueOf(15 + i % 10);
+            students.append("    <student><name>").append(name).append("</name><age>").append(age)
+                    .append("</age><grade>A</grade></student>\n");
+        }
+        Files.writeString(studentDir().resolve("students_faulty.xml"), students.append("</students>\n").toString());
+
+        JobExecution execution = launch();
+        assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+
+        StepExecution partition = execution.getStepExecutions().stream()
+                .filter(step -> step.getStepName().contains(":partition")).findFirst().orElseThrow();
+        assertEquals(1, partition.getReadSkipCount());
+        assertEquals(1, partition.getWriteSkipCount());
+        assertEquals(18, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM student WHERE name LIKE 'Tolerated student %'", Integer.class));
+
+        List<String> rejected = Files.readAllLines(
+                studentDir().resolve("quarantine").resolve("students_faulty.xml.rejected"));
+        assertEquals(2, rejected.size());
+        assertTrue(rejected.stream().anyMatch(line -> line.contains("unreadable") && line.contains("twelve")));
+        assertTrue(rejected.stream().anyMatch(line -> line.contains("not written")
+                && line.contains("<student><name>" + "x".repeat(300) + "</name>")));
+    }
+}
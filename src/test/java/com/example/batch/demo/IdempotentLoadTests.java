@@ -0,0 +1,80 @@
+package com.example.batch.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@TestPropertySource(properties = {
+        "batch.writer.mode=jpa",
+        "batch.load.mode=upsert"
+})
+class IdempotentLoadTests extends StudentJobTestSupport {
+
+    private static final String STUDENTS = "<students>\n"
+            + "    <student><name>Student 1</name><age>18</age><grade>A</grade></student>\n"
+            + "    <student><name>Student 2</name><age>19</age><grade>B</grade></student>\n"
+            + "    <student><name>Student 2</name><age>19</age><grade>B</grade></student>\n"
+            + "</students>\n";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void reDroppedFileLoadsNothingTwice() throws Exception {
+        Files.writeString(studentDir().resolve("students_1.xml"), STUDENTS);
+        assertEquals(BatchStatus.COMPLETED, launch().getStatus());
+        assertTrue(awaitArchived("students_1.xml"));
+
+        // Same records again, under a new name and not byte for byte the same file
+        Files.writeString(studentDir().resolve("students_1_again.xml"), STUDENTS + "<!-- redelivered -->\n");
+        assertEquals(BatchStatus.COMPLETED, launch().getStatus());
+        assertTrue(awaitArchived("students_1_again.xml"));
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student", Integer.class));
+        assertEquals(4, meterRegistry.get("batch.upsert.duplicates-skipped").tag("table", "student").counter().count());
+    }
+
+    @Test
+    void loadedRecordIsNotUpdatedEvenWhenTheKeyIndexDoesNotKnowIt() throws Exception {
+        // Loaded behind the key index's back, so the record below reaches the MERGE, also in the jpa writer mode
+        jdbcTemplate.update("INSERT INTO student (id, name, age, grade) VALUES (-1, 'Preloaded student', 20, 'C')");
+        Files.writeString(studentDir().resolve("preloaded.xml"),
+                "<students><student><name>Preloaded student</name><age>20</age><grade>A</grade></student></students>");
+        assertEquals(BatchStatus.COMPLETED, launch().getStatus());
+        assertTrue(awaitArchived("preloaded.xml"));
+
+        assertEquals("C", jdbcTemplate.queryForObject(
+                "SELECT grade FROM student WHERE name = 'Preloaded student'", String.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE INDEX_NAME = 'STUDENT_NATURAL_KEY'", Integer.class));
+    }
+
+    @Test
+    void identicalCopyIsArchivedWithoutReading() throws Exception {
+        String students = STUDENTS.replace("Student ", "Copied student ");
+        Files.writeString(studentDir().resolve("copied_1.xml"), students);
+        assertEquals(BatchStatus.COMPLETED, launch().getStatus());
+        assertTrue(awaitArchived("copied_1.xml"));
+        int rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student", Integer.class);
+
+        Files.writeString(studentDir().resolve("copied_1_renamed.xml"), students);
+        JobExecution execution = launch();
+        assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+        assertTrue(awaitArchived("copied_1_renamed.xml"));
+
+        assertEquals(rows, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student", Integer.class));
+        assertEquals(0, execution.getStepExecutions().stream().mapToInt(StepExecution::getReadCount).sum());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM BATCH_INGESTED_FILE WHERE FILE_NAME LIKE '%copied_1.xml'", Integer.class));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.batch.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+class ImportStudentJobTests extends StudentJobTestSupport {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void importsEveryPendingFileAndMovesItToDone() throws Exception {
+        writeStudentFile("students_1.xml", 1, 3);
+        writeStudentFile("students_2.xml", 4, 2);
+        writeStudentFile("students_3.xml", 6, 1);
+
+        JobExecution execution = launch();
+
+        assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+        assertEquals(6, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student", Integer.class));
+        // Insert is the default load mode, where two students may share a name and age
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE INDEX_NAME = 'STUDENT_NATURAL_KEY'", Integer.class));
+        // Files are archived in the background once their partition has committed
+        assertTrue(awaitArchived("students_1.xml"));
+        assertTrue(awaitArchived("students_2.xml"));
+        assertTrue(awaitArchived("students_3.xml"));
+
+        assertEquals(6, meterRegistry.get("batch.items.written").tag("job", "importStudentJob").counter().count());
+        assertTrue(meterRegistry.get("batch.chunk.commit").tag("job", "importStudentJob").timer().count() > 0);
+        assertTrue(meterRegistry.get("spring.batch.chunk.write").tag("step.name", "studentWorkerStep").timer().count() > 0);
+    }
+
+    private void writeStudentFile(String name, int firstId, int count) throws IOException {
+        StringBuilder xml = new StringBuilder("<students>\n");
+        for (int i = firstId; i < firstId + count; i++) {
+            xml.append("    <student>\n")
+                    .append("        <name>Student ").append(i).append("</name>\n")
+                    .append("        <age>").append(18 + i).append("</age>\n")
+                    .append("        <grade>A</grade>\n")
+                    .append("    </student>\n");
+        }
+        xml.append("</students>\n");
+        Files.writeString(studentDir().resolve(name), xml);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.batch.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.test.context.TestPropertySource;
+
+import com.example.batch.demo.file.FileLifecycleManager;
+
+@TestPropertySource(properties = {
+        "student.job.chunk-size=5",
+        "batch.reader.mode=cursor",
+        "batch.partition.grid-size=4",
+        "batch.partition.min-range-bytes=512"
+})
+class SplitFileImportTests extends StudentJobTestSupport {
+
+    @Test
+    void largeFileIsReadInByteRangesAndArchivedOnce() throws Exception {
+        StringBuilder students = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<students>\n");
+        for (int i = 1; i <= 100; i++) {
+            students.append("    <student><name>Split student ").append(i)
+                    .append("</name><age>").append(15 + i % 10).append("</age><grade>A</grade></student>\n");
+        }
+        Files.writeString(studentDir().resolve("students_large.xml"), students.append("</students>\n").toString());
+
+        JobExecution execution = launch();
+        assertEquals(BatchStatus.COMPLETED, execution.getStatus());
+
+        List<StepExecution> ranges = execution.getStepExecutions().stream()
+                .filter(step -> step.getExecutionContext().containsKey(FileLifecycleManager.FILE_RANGE_INDEX_KEY))
+                .collect(Collectors.toList());
+        assertEquals(4, ranges.size());
+        assertEquals(100, ranges.stream().mapToInt(StepExecution::getWriteCount).sum());
+        assertEquals(100, jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT name) FROM student WHERE name LIKE 'Split student %'", Integer.class));
+        assertTrue(awaitArchived("students_large.xml"));
+    }
+}
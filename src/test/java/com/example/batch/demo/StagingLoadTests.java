@@ -0,0 +1,39 @@
+package com.example.batch.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = {
+        "student.job.chunk-size=5",
+        "student.job.writer-mode=staging",
+        "batch.reader.mode=cursor",
+        "batch.partition.grid-size=4",
+        "batch.partition.min-range-bytes=512"
+})
+class StagingLoadTests extends StudentJobTestSupport {
+
+    @Test
+    void stagedRangesAreMergedOnceTheWholeFileCommitted() throws Exception {
+        StringBuilder students = new StringBuilder("<students>\n");
+        for (int i = 1; i <= 100; i++) {
+            students.append("    <student><name>Staged student ").append(i)
+                    .append("</name><age>").append(15 + i % 10).append("</age><grade>A</grade></student>\n");
+        }
+        Files.writeString(studentDir().resolve("students_staged.xml"), students.append("</students>\n").toString());
+
+        assertEquals(BatchStatus.COMPLETED, launch().getStatus());
+
+        assertTrue(awaitArchived("students_staged.xml"));
+        assertEquals(100, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM student WHERE name LIKE 'Staged student %'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_staging", Integer.class));
+        assertEquals(100, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student s JOIN grade g "
+                + "ON g.id = s.grade_id WHERE s.name LIKE 'Staged student %' AND g.code = 'A'", Integer.class));
+    }
+}
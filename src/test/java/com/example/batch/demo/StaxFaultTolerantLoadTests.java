@@ -0,0 +1,11 @@
+package com.example.batch.demo;
+
+import org.springframework.test.context.TestPropertySource;
+
+// The same faulty file read by StaxEventItemReader: the unconvertible age must be quarantined, not loaded as 0
+@TestPropertySource(properties = {
+        "batch.reader.mode=stax",
+        "batch.writer.mode=jdbc"
+})
+class StaxFaultTolerantLoadTests extends FaultTolerantLoadTests {
+}
@@ -0,0 +1,73 @@
+package com.example.batch.demo;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+// Base of the tests that run importStudentJob end to end. Subclasses add the properties they test with
+// @TestPropertySource; classes with the same properties share one cached context. Every context gets its own
+// student directory (under target/) and in-memory database, so a cached context never sees another one's files.
+@SpringBootTest(properties = {
+        "spring.batch.job.enabled=false",
+        "teacher.job.enabled=false",
+        "student.job.initialDelay=3600000",
+        "batch.trigger.settle-ms=0"
+})
+public abstract class StudentJobTestSupport {
+
+    private static final String FILE_PATTERN = "*.xml";
+
+    @Autowired
+    protected JobLauncher jobLauncher;
+
+    @Autowired
+    @Qualifier("importStudentJob")
+    protected Job importStudentJob;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Value("${student.job.directory}")
+    private String studentDirectory;
+
+    @DynamicPropertySource
+    static void studentDirectory(DynamicPropertyRegistry registry) throws IOException {
+        Path root = Files.createDirectories(Paths.get("target", "student-job-tests"));
+        Path directory = Files.createTempDirectory(root, "students").toAbsolutePath();
+        registry.add("student.job.directory", () -> directory.toUri() + FILE_PATTERN);
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:" + directory.getFileName());
+    }
+
+    protected Path studentDir() {
+        return Paths.get(URI.create(
+                studentDirectory.substring(0, studentDirectory.length() - FILE_PATTERN.length())));
+    }
+
+    protected JobExecution launch() throws Exception {
+        return jobLauncher.run(importStudentJob,
+                new JobParametersBuilder().addLong("timestamp", System.nanoTime()).toJobParameters());
+    }
+
+    // Files are archived in the background once their partition has committed; waits up to 10 seconds
+    protected boolean awaitArchived(String name) throws InterruptedException {
+        Path archived = studentDir().resolve("done").resolve(name);
+        for (int i = 0; i < 100 && !Files.exists(archived); i++) {
+            Thread.sleep(100);
+        }
+        return Files.exists(archived) && !Files.exists(studentDir().resolve(name));
+    }
+}
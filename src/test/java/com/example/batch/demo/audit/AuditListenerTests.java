@@ -0,0 +1,33 @@
+package com.example.batch.demo.audit;
+
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+class AuditListenerTests {
+
+    @Test
+    void countsItemsFilteredByTheAsyncProcessor() {
+        AuditLog auditLog = mock(AuditLog.class);
+        AuditListener listener = new AuditListener(auditLog);
+        StepExecution partition = MetaDataInstanceFactory.createStepExecution();
+        listener.beforeStep(partition);
+
+        List<Future<String>> chunk = List.of(CompletableFuture.completedFuture("a"),
+                CompletableFuture.completedFuture(null), CompletableFuture.completedFuture("c"));
+        chunk.forEach(future -> listener.afterProcess("item", future));
+        listener.afterWrite(chunk);
+        listener.afterStep(partition);
+
+        verify(auditLog).publish(contains("3 processed, 1 filtered, 2 written"));
+        verify(auditLog).publish(contains("first=a, last=c"));
+    }
+}
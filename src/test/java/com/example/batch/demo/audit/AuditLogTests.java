@@ -0,0 +1,29 @@
+package com.example.batch.demo.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuditLogTests {
+
+    @Test
+    void fullBufferDropsAndCountsEventsWithoutBlocking() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuditLog auditLog = new AuditLog(new MockEnvironment(), meterRegistry, 1, 2);
+        auditLog.shutdown(); // Nothing drains the buffer any more
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            auditLog.publish("event " + i);
+        }
+
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        assertEquals(3, auditLog.getDroppedCount());
+        assertEquals(3, meterRegistry.counter("batch.audit.dropped").count());
+        assertEquals(2, meterRegistry.get("batch.audit.buffered").gauge().value());
+    }
+}
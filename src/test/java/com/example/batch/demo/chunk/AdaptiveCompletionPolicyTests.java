@@ -0,0 +1,52 @@
+package com.example.batch.demo.chunk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.repeat.RepeatContext;
+
+class AdaptiveCompletionPolicyTests {
+
+    private final AdaptiveCompletionPolicy policy = new AdaptiveCompletionPolicy(40, 10, 160, 100);
+    private final JobExecution jobExecution = new JobExecution(1L);
+    private final StepExecution slowPartition = new StepExecution("partition0", jobExecution, 1L);
+    private final StepExecution fastPartition = new StepExecution("partition1", jobExecution, 2L);
+
+    @AfterEach
+    void closeStep() {
+        StepSynchronizationManager.close();
+    }
+
+    @Test
+    void concurrentPartitionsKeepTheirOwnChunkSize() {
+        policy.recordCommit(slowPartition, 400_000_000L);
+        policy.recordCommit(fastPartition, 10_000_000L);
+        policy.recordFailure(fastPartition);
+
+        assertEquals(20, policy.getChunkSize(slowPartition));
+        assertEquals(40, policy.getChunkSize(fastPartition));
+
+        StepSynchronizationManager.register(slowPartition);
+        RepeatContext chunk = policy.start(null);
+        for (int i = 0; i < 19; i++) {
+            policy.update(chunk);
+        }
+        assertFalse(policy.isComplete(chunk));
+        policy.update(chunk);
+        assertTrue(policy.isComplete(chunk));
+    }
+
+    @Test
+    void finishedPartitionStartsOverFromTheInitialSize() {
+        policy.recordFailure(slowPartition);
+        policy.afterStep(slowPartition);
+
+        assertEquals(40, policy.getChunkSize(slowPartition));
+    }
+}
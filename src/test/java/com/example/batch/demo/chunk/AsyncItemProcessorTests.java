@@ -0,0 +1,81 @@
+package com.example.batch.demo.chunk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.example.batch.demo.feed.FeedRegistry;
+import com.example.batch.demo.file.DirectoryIndex;
+import com.example.batch.demo.file.FileLifecycleManager;
+import com.example.batch.demo.metrics.BatchMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AsyncItemProcessorTests {
+
+    private final BatchMetrics batchMetrics = new BatchMetrics(new SimpleMeterRegistry(), mock(DirectoryIndex.class),
+            mock(FileLifecycleManager.class), mock(FeedRegistry.class));
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    AsyncItemProcessorTests() {
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(batchMetrics.monitorExecutor("test", executor));
+        executor.initialize();
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void writesResultsInItemOrderAndDropsFilteredItems() throws Exception {
+        // Earlier items take longer, so they complete last
+        AsyncItemProcessor<Integer, String> processor = new AsyncItemProcessor<>(item -> {
+            Thread.sleep((10 - item) * 10L);
+            return item % 3 == 0 ? null : "item-" + item;
+        }, executor);
+        List<String> written = new ArrayList<>();
+        AsyncItemWriter<String> writer = new AsyncItemWriter<>(written::addAll, batchMetrics);
+
+        List<Future<String>> chunk = new ArrayList<>();
+        for (int item = 1; item <= 9; item++) {
+            chunk.add(processor.process(item));
+        }
+        writer.beforeWrite(chunk); // Waits for the process stage before the measured write starts
+        assertTrue(chunk.stream().allMatch(Future::isDone));
+        writer.write(chunk);
+
+        assertEquals(Arrays.asList("item-1", "item-2", "item-4", "item-5", "item-7", "item-8"), written);
+    }
+
+    @Test
+    void processingFailureFailsTheWrite() throws Exception {
+        AsyncItemProcessor<Integer, Integer> processor = new AsyncItemProcessor<>(item -> {
+            if (item == 2) {
+                throw new IllegalArgumentException("bad item " + item);
+            }
+            return item;
+        }, executor);
+        List<Integer> written = new ArrayList<>();
+        AsyncItemWriter<Integer> writer = new AsyncItemWriter<>(written::addAll, batchMetrics);
+
+        List<Future<Integer>> chunk = Arrays.asList(processor.process(1), processor.process(2), processor.process(3));
+
+        writer.beforeWrite(chunk); // Leaves the failure to the write, inside the chunk's transaction
+        assertThrows(IllegalArgumentException.class, () -> writer.write(chunk));
+        assertEquals(0, written.size());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.batch.demo.chunk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+
+class ChunkLatencyListenerTests {
+
+    @AfterEach
+    void closeStep() {
+        StepSynchronizationManager.close();
+    }
+
+    @Test
+    void throttlingWaitsBeforeTheChunkAndIsNotMeasuredAsCommitLatency() {
+        WriteRateLimiter rateLimiter = new WriteRateLimiter(20, 200);
+        AdaptiveCompletionPolicy completionPolicy = new AdaptiveCompletionPolicy(20, 20, 20, 500);
+        ChunkLatencyListener listener = new ChunkLatencyListener(completionPolicy, rateLimiter);
+        List<Integer> chunk = Collections.nCopies(20, 1);
+        StepSynchronizationManager.register(new StepExecution("partition0", new JobExecution(1L), 1L));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 2; i++) {
+            listener.before(null); // The second chunk waits a second for its rows
+            listener.beforeChunk(null);
+            listener.beforeWrite(chunk);
+            listener.afterWrite(chunk);
+            listener.afterChunk(null);
+        }
+
+        assertTrue(System.nanoTime() - start >= 900_000_000L);
+        assertEquals(20, rateLimiter.getRate()); // A wait counted as latency would have halved the rate
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.batch.demo.chunk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.step.skip.SkipLimitExceededException;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ChunkSkipsTests {
+
+    private final TransactionTemplate chunkTransaction = new TransactionTemplate(new ResourcelessTransactionManager());
+    private final StepExecution partition = MetaDataInstanceFactory.createStepExecution();
+    private final Exception cause = new IllegalArgumentException("bad record");
+
+    @Test
+    void skipsOfARolledBackChunkAreNotCounted() {
+        chunkTransaction.executeWithoutResult(status -> {
+            ChunkSkips.readSkip(partition, 3, cause);
+            ChunkSkips.writeSkip(partition, 3, cause);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, partition.getSkipCount());
+
+        // The same chunk again, committing this time
+        chunkTransaction.executeWithoutResult(status -> {
+            ChunkSkips.readSkip(partition, 3, cause);
+            ChunkSkips.writeSkip(partition, 3, cause);
+        });
+        assertEquals(1, partition.getReadSkipCount());
+        assertEquals(1, partition.getWriteSkipCount());
+    }
+
+    @Test
+    void limitCoversThePendingSkipsOfTheChunk() {
+        partition.setReadSkipCount(1);
+        assertThrows(SkipLimitExceededException.class, () -> chunkTransaction.executeWithoutResult(status -> {
+            ChunkSkips.writeSkip(partition, 3, cause);
+            ChunkSkips.writeSkip(partition, 3, cause);
+            ChunkSkips.writeSkip(partition, 3, cause);
+        }));
+        assertEquals(1, partition.getSkipCount());
+    }
+}
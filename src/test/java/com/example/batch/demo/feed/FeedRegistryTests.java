@@ -0,0 +1,50 @@
+package com.example.batch.demo.feed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.example.batch.demo.model.Student;
+
+class FeedRegistryTests {
+
+    @Test
+    void propertiesOverrideTheDeclaredDefaults() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("student.job.directory", "file:/in/students/*.xml")
+                .withProperty("student.job.natural-key", "name, grade")
+                .withProperty("student.job.chunk-size", "50")
+                .withProperty("teacher.job.enabled", "false");
+
+        FeedRegistry registry = new FeedRegistry(environment);
+
+        FeedDefinition<?> student = registry.forJob("importStudentJob");
+        assertEquals("file:/in/students/*.xml", student.getDirectory());
+        assertEquals(List.of("name", "grade"), student.getNaturalKey());
+        assertEquals(50, student.getChunkSize());
+        assertEquals(15000, student.getFixedRate());
+        assertEquals(List.of("id", "name", "age", "grade", "grade_id"), List.copyOf(student.getColumns().keySet()));
+        assertFalse(registry.get("teacher").isEnabled());
+        assertEquals(List.of(student), registry.getEnabledFeeds());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fieldMappersParseTheElementText() {
+        FeedDefinition<Student> student = (FeedDefinition<Student>) new FeedRegistry(new MockEnvironment())
+                .get("student");
+
+        Student item = student.getFactory().get();
+        student.getFieldMappers().get("age").accept(item, " 18 ");
+        student.getFieldMappers().get("name").accept(item, "Student 1");
+
+        assertEquals(18, item.getAge());
+        assertEquals("Student 1", student.getGetters().get("name").apply(item));
+        assertTrue(student.getFieldMappers().keySet().containsAll(List.of("name", "age", "grade")));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.batch.demo.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+class FileClaimServiceTests {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("schema.sql")
+            .build();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    void twoNodesNeverClaimTheSameFile() {
+        FileClaimService node1 = node("node-1", 60000);
+        FileClaimService node2 = node("node-2", 60000);
+        List<FileEntry> files = files(250);
+
+        List<FileEntry> claimedByNode1 = node1.claim(files.subList(0, 150));
+        List<FileEntry> claimedByNode2 = node2.claim(files);
+
+        assertEquals(150, claimedByNode1.size());
+        assertEquals(100, claimedByNode2.size());
+        assertTrue(claimedByNode2.stream().noneMatch(claimedByNode1::contains));
+    }
+
+    @Test
+    void releasedClaimsCanBeClaimedAgain() {
+        FileClaimService node1 = node("node-1", 60000);
+        FileClaimService node2 = node("node-2", 60000);
+        String fileName = files(1).get(0).getFileName();
+
+        assertTrue(node1.claim(fileName));
+        assertFalse(node2.claim(fileName));
+
+        node1.release(fileName);
+        assertTrue(node2.claim(fileName));
+    }
+
+    @Test
+    void expiredClaimsAreTakenOver() throws InterruptedException {
+        FileClaimService node1 = node("node-1", 60000);
+        String fileName = files(1).get(0).getFileName();
+        assertTrue(node1.claim(fileName));
+
+        Thread.sleep(100); // node-1 never sends a heartbeat in this test
+        FileClaimService node2 = node("node-2", 50);
+        assertTrue(node2.claim(fileName));
+        assertFalse(node1.claim(fileName));
+    }
+
+    private FileClaimService node(String nodeId, long expiryMillis) {
+        return new FileClaimService(jdbcTemplate, true, nodeId, 3600000, expiryMillis, 100);
+    }
+
+    private List<FileEntry> files(int count) {
+        List<FileEntry> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(new FileEntry(Paths.get("/shared/students/students_" + i + ".xml"), 100, 0));
+        }
+        return files;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.batch.demo.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+class FileFingerprintServiceTests {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("schema.sql")
+            .build();
+    private final FileFingerprintService service = new FileFingerprintService(new JdbcTemplate(database), true,
+            "SHA-256", 100);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    void copiesHaveTheSameFingerprint() throws Exception {
+        FileEntry original = write("students_1.xml", "<students/>");
+        FileEntry copy = write("renamed.xml", "<students/>");
+        FileEntry other = write("students_2.xml", "<students></students>");
+
+        assertEquals(service.fingerprint(original), service.fingerprint(copy));
+        assertNotEquals(service.fingerprint(original), service.fingerprint(other));
+    }
+
+    @Test
+    void unchangedFilesAreNotHashedAgain() throws Exception {
+        FileEntry file = write("students_1.xml", "<students/>");
+        String fingerprint = service.fingerprint(file);
+
+        // Same path, size and mtime: the cached fingerprint is returned, the content is not read
+        Files.writeString(file.getPath(), "<other/>!!!");
+        assertEquals(fingerprint, service.fingerprint(file));
+
+        FileEntry changed = entry(file.getPath());
+        assertNotEquals(fingerprint, service.fingerprint(changed));
+    }
+
+    @Test
+    void recordedFingerprintsAreFound() throws Exception {
+        FileEntry file = write("students_1.xml", "<students/>");
+        String fingerprint = service.fingerprint(file);
+
+        service.recordIngested(fingerprint, file.getFileName(), file.getSize());
+        service.recordIngested(fingerprint, file.getFileName(), file.getSize());
+
+        Set<String> ingested = service.findIngested(List.of(fingerprint, "unknown"));
+        assertEquals(1, ingested.size());
+        assertTrue(ingested.contains(fingerprint));
+    }
+
+    private FileEntry write(String name, String content) throws Exception {
+        return entry(Files.writeString(directory.resolve(name), content));
+    }
+
+    private static FileEntry entry(Path path) throws Exception {
+        return new FileEntry(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.batch.demo.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+
+class FileLifecycleManagerTests {
+
+    private final FileLifecycleManager manager = new FileLifecycleManager(null, null, null, null, 60000);
+
+    @AfterEach
+    void shutdown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void committedFileIsQueuedOnlyOnceItsReaderClosedIt() {
+        StepExecution partition = new StepExecution("partition0", new JobExecution(1L), 1L);
+        partition.getExecutionContext().putString(FileLifecycleManager.FILE_NAME_KEY, "file:/missing/students.xml");
+        manager.readerClosed(partition);
+        assertEquals(0, manager.archiveBacklog());
+
+        manager.markCommitted(partition);
+        assertEquals(0, manager.archiveBacklog());
+
+        manager.readerClosed(partition);
+        assertEquals(1, manager.archiveBacklog());
+        manager.readerClosed(partition);
+        assertEquals(1, manager.archiveBacklog());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.batch.demo.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+class BatchMetadataRetentionTests {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final String JOB_NAME = "importStudentJob";
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("org/springframework/batch/core/schema-h2.sql")
+            .build();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+    private final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(database);
+    private final long now = System.currentTimeMillis();
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    void prunesExecutionsOlderThanMaxAgeButKeepsTheNewestRuns() throws Exception {
+        JobRepository jobRepository = jobRepository();
+        for (int i = 0; i < 8; i++) {
+            run(jobRepository, BatchStatus.COMPLETED, now - (20 - i) * DAY);
+        }
+        run(jobRepository, BatchStatus.COMPLETED, now - DAY);
+        JobExecution running = jobRepository.createJobExecution(JOB_NAME, new JobParametersBuilder()
+                .addLong("timestamp", 99L).toJobParameters());
+
+        int pruned = retention(0).prune(now);
+
+        // The 5 newest runs are kept whatever their age, the rest ended more than 7 days ago
+        assertEquals(5, pruned);
+        assertEquals(5, count("BATCH_JOB_INSTANCE"));
+        assertEquals(5, count("BATCH_JOB_EXECUTION"));
+        assertEquals(4, count("BATCH_STEP_EXECUTION"));
+        assertEquals(4, count("BATCH_STEP_EXECUTION_CONTEXT"));
+        assertEquals(List.of(running.getId()), jdbcTemplate.queryForList(
+                "SELECT JOB_EXECUTION_ID FROM BATCH_JOB_EXECUTION WHERE END_TIME IS NULL", Long.class));
+    }
+
+    @Test
+    void prunesRunsBeyondMaxCountRegardlessOfAge() throws Exception {
+        JobRepository jobRepository = jobRepository();
+        for (int i = 0; i < 10; i++) {
+            run(jobRepository, i % 2 == 0 ? BatchStatus.COMPLETED : BatchStatus.FAILED, now - DAY);
+        }
+
+        assertEquals(4, retention(6).prune(now));
+        assertEquals(6, count("BATCH_JOB_INSTANCE"));
+        assertEquals(6, count("BATCH_JOB_EXECUTION_PARAMS"));
+        assertEquals(0, retention(6).prune(now));
+    }
+
+    private BatchMetadataRetention retention(int maxCount) {
+        return new BatchMetadataRetention(jdbcTemplate, transactionManager, true, 7 * DAY, maxCount, 2);
+    }
+
+    private JobRepository jobRepository() throws Exception {
+        JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+        factory.setDataSource(database);
+        factory.setTransactionManager(transactionManager);
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+    // One finished run with one file partition, as a scheduler tick leaves it
+    private void run(JobRepository jobRepository, BatchStatus status, long endTime) throws Exception {
+        JobExecution jobExecution = jobRepository.createJobExecution(JOB_NAME, new JobParametersBuilder()
+                .addLong("timestamp", endTime + count("BATCH_JOB_INSTANCE")).toJobParameters());
+        StepExecution stepExecution = jobExecution.createStepExecution("studentWorkerStep:partition0");
+        jobRepository.add(stepExecution);
+        stepExecution.getExecutionContext().putString("file.state", "ARCHIVED");
+        jobRepository.updateExecutionContext(stepExecution);
+        jobExecution.setStatus(status);
+        jobExecution.setEndTime(new Date(endTime));
+        jobRepository.update(jobExecution);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
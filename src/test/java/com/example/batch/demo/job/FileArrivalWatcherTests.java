@@ -0,0 +1,30 @@
+package com.example.batch.demo.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import com.example.batch.demo.StudentJobTestSupport;
+
+@TestPropertySource(properties = {
+        "batch.trigger.mode=watch",
+        "batch.trigger.settle-ms=200",
+        "batch.trigger.debounce-ms=100"
+})
+class FileArrivalWatcherTests extends StudentJobTestSupport {
+
+    @Test
+    void launchesTheJobWhenAFileArrives() throws Exception {
+        Files.writeString(studentDir().resolve("students_1.xml"), "<students>\n"
+                + "    <student><name>Student 1</name><age>18</age><grade>A</grade></student>\n"
+                + "    <student><name>Student 2</name><age>19</age><grade>B</grade></student>\n"
+                + "</students>\n");
+
+        assertTrue(awaitArchived("students_1.xml"));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student", Integer.class));
+    }
+}
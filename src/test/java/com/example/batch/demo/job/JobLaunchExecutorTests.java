@@ -0,0 +1,89 @@
+package com.example.batch.demo.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.batch.demo.metrics.BatchMetrics;
+
+class JobLaunchExecutorTests {
+
+    private final BatchMetrics batchMetrics = mock(BatchMetrics.class);
+    private final List<String> launched = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private JobLaunchExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void coalescesTriggersAndStartsHigherPriorityJobsFirst() throws Exception {
+        executor = new JobLaunchExecutor(batchMetrics, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit("longJob", 0, 1, () -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch done = new CountDownLatch(2);
+        assertTrue(executor.submit("importStudentJob", 0, 1, launch("importStudentJob", done)));
+        assertFalse(executor.submit("importStudentJob", 0, 1, launch("importStudentJob", done)));
+        assertTrue(executor.submit("importTeacherJob", 5, 1, launch("importTeacherJob", done)));
+        assertEquals(2, executor.getPendingCount());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("importTeacherJob", "importStudentJob"), launched);
+        verify(batchMetrics).recordLaunchCoalesced("importStudentJob");
+    }
+
+    @Test
+    void keepsAJobWithinItsMaxConcurrentExecutions() throws Exception {
+        executor = new JobLaunchExecutor(batchMetrics, 2);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit("importStudentJob", 0, 1, () -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit("importStudentJob", 0, 1, launch("importStudentJob", done));
+        Thread.sleep(200);
+        assertEquals(1, executor.getRunningCount()); // The second thread is free but the job is at its limit
+        assertEquals(1, executor.getPendingCount());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("importStudentJob"), launched);
+    }
+
+    private Runnable launch(String jobName, CountDownLatch done) {
+        return () -> {
+            launched.add(jobName);
+            done.countDown();
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
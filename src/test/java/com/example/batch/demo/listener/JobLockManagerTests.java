@@ -0,0 +1,42 @@
+package com.example.batch.demo.listener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class JobLockManagerTests {
+
+    private final JobLockManager jobLockManager = new JobLockManager();
+
+    @Test
+    void differentJobsDoNotBlockEachOther() {
+        assertTrue(jobLockManager.acquire("importStudentJob", 1, 60000));
+        assertTrue(jobLockManager.acquire("importTeacherJob", 2, 60000));
+        assertFalse(jobLockManager.acquire("importStudentJob", 3, 60000));
+    }
+
+    @Test
+    void onlyTheOwnerCanReleaseTheLock() {
+        jobLockManager.acquire("importStudentJob", 1, 60000);
+
+        jobLockManager.release("importStudentJob", 2);
+        assertEquals(1L, jobLockManager.getOwner("importStudentJob"));
+
+        jobLockManager.release("importStudentJob", 1);
+        assertNull(jobLockManager.getOwner("importStudentJob"));
+        assertTrue(jobLockManager.acquire("importStudentJob", 2, 60000));
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndCannotBeRenewedByTheOldOwner() throws InterruptedException {
+        jobLockManager.acquire(JobLockManager.lockKey("importStudentJob", "students_1"), 1, 10);
+        Thread.sleep(20);
+
+        assertTrue(jobLockManager.acquire(JobLockManager.lockKey("importStudentJob", "students_1"), 2, 60000));
+        assertFalse(jobLockManager.renew(JobLockManager.lockKey("importStudentJob", "students_1"), 1, 60000));
+        assertTrue(jobLockManager.renew(JobLockManager.lockKey("importStudentJob", "students_1"), 2, 60000));
+    }
+}
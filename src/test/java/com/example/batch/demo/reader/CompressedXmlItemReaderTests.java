@@ -0,0 +1,112 @@
+package com.example.batch.demo.reader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import com.example.batch.demo.model.Student;
+
+class CompressedXmlItemReaderTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsEveryXmlEntryOfAZip() throws Exception {
+        Path zip = directory.resolve("students.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            entry(out, "students_1.xml", students(1, 3));
+            entry(out, "readme.txt", "not a student file");
+            entry(out, "students_2.xml", students(4, 2));
+        }
+
+        assertEquals(List.of("Student 1", "Student 2", "Student 3", "Student 4", "Student 5"),
+                readAll(reader(zip), new ExecutionContext()));
+    }
+
+    @Test
+    void restartsInTheEntryItStoppedIn() throws Exception {
+        Path zip = directory.resolve("students.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            entry(out, "students_1.xml", students(1, 3));
+            entry(out, "students_2.xml", students(4, 3));
+        }
+        ExecutionContext executionContext = new ExecutionContext();
+        CompressedXmlItemReader<Student> reader = reader(zip);
+        reader.open(executionContext);
+        for (int i = 0; i < 4; i++) {
+            reader.read();
+        }
+        reader.update(executionContext);
+        reader.close();
+
+        assertEquals(List.of("Student 5", "Student 6"), readAll(reader(zip), executionContext));
+    }
+
+    @Test
+    void readsAGzippedFile() throws Exception {
+        Path gz = directory.resolve("students.xml.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            out.write(students(1, 2000).getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<String> names = readAll(reader(gz), new ExecutionContext());
+        assertEquals(2000, names.size());
+        assertEquals("Student 2000", names.get(1999));
+    }
+
+    private static List<String> readAll(CompressedXmlItemReader<Student> reader, ExecutionContext executionContext)
+            throws Exception {
+        List<String> names = new ArrayList<>();
+        reader.open(executionContext);
+        Student student;
+        while ((student = reader.read()) != null) {
+            names.add(student.getName());
+        }
+        assertNull(reader.read());
+        reader.close();
+        return names;
+    }
+
+    private static CompressedXmlItemReader<Student> reader(Path file) {
+        CompressedXmlItemReader<Student> reader = new CompressedXmlItemReader<>(() -> {
+            Map<String, BiConsumer<Student, String>> fields = new LinkedHashMap<>();
+            fields.put("name", Student::setName);
+            return new XmlCursorItemReader<>("student", Student::new, fields);
+        });
+        reader.setResource(new FileSystemResource(file));
+        reader.setReadAhead(1024, 2); // Small buffers, so the parser waits on the inflating thread
+        return reader;
+    }
+
+    private static void entry(ZipOutputStream out, String name, String content) throws Exception {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+
+    private static String students(int first, int count) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<students>\n");
+        for (int i = first; i < first + count; i++) {
+            xml.append("    <student><name>Student ").append(i).append("</name></student>\n");
+        }
+        return xml.append("</students>\n").toString();
+    }
+}
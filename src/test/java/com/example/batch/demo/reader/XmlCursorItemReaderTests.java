@@ -0,0 +1,152 @@
+package com.example.batch.demo.reader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.xml.StaxEventItemReader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+
+import com.example.batch.demo.model.Student;
+
+class XmlCursorItemReaderTests {
+
+    private final Resource students = new ClassPathResource("utils/students_3.xml");
+
+    @Test
+    void readsTheSameStudentsAsStaxEventItemReader() throws Exception {
+        StaxEventItemReader<Student> staxReader = staxReader();
+        XmlCursorItemReader<Student> cursorReader = cursorReader();
+        staxReader.open(new ExecutionContext());
+        cursorReader.open(new ExecutionContext());
+
+        int count = 0;
+        Student expected;
+        while ((expected = staxReader.read()) != null) {
+            assertEquals(expected.toString(), cursorReader.read().toString());
+            count++;
+        }
+        assertNull(cursorReader.read());
+        assertEquals(50, count);
+
+        staxReader.close();
+        cursorReader.close();
+    }
+
+    @Test
+    void restartsFromItemCountWrittenByStaxEventItemReader() throws Exception {
+        StaxEventItemReader<Student> staxReader = staxReader();
+        ExecutionContext executionContext = new ExecutionContext();
+        staxReader.open(executionContext);
+        for (int i = 0; i < 7; i++) {
+            staxReader.read();
+        }
+        staxReader.update(executionContext);
+        staxReader.close();
+
+        XmlCursorItemReader<Student> cursorReader = cursorReader();
+        cursorReader.open(executionContext);
+        assertEquals("Student 8", cursorReader.read().getName());
+        cursorReader.close();
+    }
+
+    @Test
+    void restartSeeksToTheByteAfterTheLastCommittedItem(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("students.xml");
+        Files.writeString(file, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<ns:students xmlns:ns=\"urn:students\" source=\"a &amp; b\">\n"
+                + "    <ns:student><name>Élève 1</name><age>18</age><grade>A</grade></ns:student>\n"
+                + "    <!-- <student><name>commented out</name></student> -->\n"
+                + "    <ns:student><name><![CDATA[</student> 2]]></name><age>19</age><grade>B</grade></ns:student>\n"
+                + "    <ns:student><name>Student 3</name><age>20</age><grade>C</grade></ns:student>\n"
+                + "</ns:students>\n", StandardCharsets.UTF_8);
+        ExecutionContext executionContext = new ExecutionContext();
+        XmlCursorItemReader<Student> reader = cursorReader(new FileSystemResource(file));
+        reader.open(executionContext);
+        reader.read();
+        reader.read();
+        reader.update(executionContext);
+        reader.close();
+
+        // The first two items are never parsed again: corrupting them (same length) does not break the restart
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        Files.writeString(file, content.replace("<age>18</age>", "<age>18<age>"), StandardCharsets.UTF_8);
+
+        reader = cursorReader(new FileSystemResource(file));
+        reader.open(executionContext);
+        assertEquals("Student 3", reader.read().getName());
+        assertNull(reader.read());
+        reader.update(executionContext);
+        reader.close();
+        assertTrue(executionContext.getLong("StaxEventItemReader.byte.offset")
+                > content.getBytes(StandardCharsets.UTF_8).length - 20);
+    }
+
+    @Test
+    void byteRangesSplitTheFileAtStudentBoundaries() throws Exception {
+        Path file = students.getFile().toPath();
+        List<Long> starts;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            starts = new XmlFragmentScanner("student", channel, true).split(3);
+        }
+        assertEquals(3, starts.size());
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++) {
+            XmlCursorItemReader<Student> reader = cursorReader();
+            reader.setRange(starts.get(i), i + 1 < starts.size() ? starts.get(i + 1) : Files.size(file));
+            reader.open(new ExecutionContext());
+            Student student;
+            while ((student = reader.read()) != null) {
+                names.add(student.getName());
+            }
+            reader.close();
+        }
+        assertEquals(50, names.size());
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals("Student " + (i + 1), names.get(i));
+        }
+    }
+
+    private StaxEventItemReader<Student> staxReader() throws Exception {
+        Jaxb2Marshaller unmarshaller = new Jaxb2Marshaller();
+        unmarshaller.setClassesToBeBound(Student.class);
+        unmarshaller.afterPropertiesSet();
+        StaxEventItemReader<Student> reader = new StaxEventItemReader<>();
+        reader.setResource(students);
+        reader.setFragmentRootElementName("student");
+        reader.setUnmarshaller(unmarshaller);
+        return reader;
+    }
+
+    private XmlCursorItemReader<Student> cursorReader() {
+        return cursorReader(students);
+    }
+
+    private XmlCursorItemReader<Student> cursorReader(Resource resource) {
+        Map<String, BiConsumer<Student, String>> fields = new LinkedHashMap<>();
+        fields.put("name", Student::setName);
+        fields.put("age", (student, value) -> student.setAge(Integer.parseInt(value.trim())));
+        fields.put("grade", Student::setGrade);
+        XmlCursorItemReader<Student> reader = new XmlCursorItemReader<>("student", Student::new, fields);
+        reader.setResource(resource);
+        return reader;
+    }
+}
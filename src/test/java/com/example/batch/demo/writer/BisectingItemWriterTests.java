@@ -0,0 +1,78 @@
+package com.example.batch.demo.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.batch.demo.file.FileLifecycleManager;
+import com.example.batch.demo.file.QuarantineLog;
+
+class BisectingItemWriterTests {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+    private final QuarantineLog quarantineLog = mock(QuarantineLog.class);
+
+    @AfterEach
+    void shutdown() {
+        StepSynchronizationManager.close();
+        database.shutdown();
+    }
+
+    @Test
+    void isolatesTheBadRowInLogarithmicallyManyWrites() {
+        jdbcTemplate.execute("CREATE TABLE reading (v INT CHECK (v >= 0))");
+        StepExecution partition = MetaDataInstanceFactory.createStepExecution();
+        partition.getExecutionContext().putString(FileLifecycleManager.FILE_NAME_KEY, "file:/in/readings.xml");
+        StepSynchronizationManager.register(partition);
+        AtomicInteger writes = new AtomicInteger();
+        ItemWriter<Integer> batchInsert = items -> {
+            writes.incrementAndGet();
+            jdbcTemplate.batchUpdate("INSERT INTO reading (v) VALUES (?)",
+                    items.stream().map(item -> new Object[] {item}).collect(Collectors.toList()));
+        };
+        BisectingItemWriter<Integer> writer = new BisectingItemWriter<>(batchInsert, database, quarantineLog,
+                item -> "<reading><v>" + item + "</v></reading>", 10);
+        List<Integer> chunk = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            chunk.add(i == 5 ? -5 : i);
+        }
+
+        new TransactionTemplate(new DataSourceTransactionManager(database)).executeWithoutResult(status -> {
+            try {
+                writer.write(chunk);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(15, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reading", Integer.class));
+        assertEquals(9, writes.get()); // The chunk, then both halves at each of the 4 levels
+        assertEquals(1, partition.getWriteSkipCount());
+        verify(quarantineLog).reject(eq("file:/in/readings.xml"), contains("not written"),
+                eq("<reading><v>-5</v></reading>"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.batch.demo.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import com.example.batch.demo.metrics.BatchMetrics;
+import com.example.batch.demo.model.Teacher;
+
+class DimensionTableTests {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    void resolvesAChunkFromTheCacheAndAddsUnknownValuesOnce() throws Exception {
+        jdbcTemplate.execute("CREATE TABLE subject (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(255) NOT NULL UNIQUE)");
+        jdbcTemplate.update("INSERT INTO subject (name) VALUES ('Math'), ('Physics')");
+        DimensionTable subjects = new DimensionTable(jdbcTemplate, new DataSourceTransactionManager(database),
+                "subject", "name", 100, 0, mock(BatchMetrics.class));
+        subjects.warm();
+        assertEquals(2, subjects.size());
+
+        EnrichingItemWriter<Teacher> writer = new EnrichingItemWriter<>(items -> { },
+                List.of(new EnrichingItemWriter.Lookup<>(subjects, Teacher::getSubject, Teacher::setSubjectId)));
+        List<Teacher> chunk = List.of(teacher("Math"), teacher("Chemistry "), teacher("Math"), teacher(null));
+        writer.write(chunk);
+
+        Map<String, Long> ids = subjects.resolve(Set.of("Math", "Chemistry"));
+        assertEquals(ids.get("Math"), chunk.get(0).getSubjectId());
+        assertEquals(ids.get("Chemistry"), chunk.get(1).getSubjectId());
+        assertEquals(null, chunk.get(3).getSubjectId());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM subject", Integer.class));
+        assertEquals(3, subjects.getHits()); // Math in the chunk, then both values on the second lookup
+        assertEquals(1, subjects.getMisses());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedValuesBeyondMaxSize() {
+        jdbcTemplate.execute("CREATE TABLE grade (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "code VARCHAR(255) NOT NULL UNIQUE)");
+        DimensionTable grades = new DimensionTable(jdbcTemplate, new DataSourceTransactionManager(database),
+                "grade", "code", 2, 0, mock(BatchMetrics.class));
+
+        grades.resolve(Set.of("A", "B"));
+        grades.resolve(Set.of("A"));
+        grades.resolve(Set.of("C")); // Evicts B
+        grades.resolve(Set.of("A", "B"));
+
+        assertEquals(2, grades.size());
+        assertEquals(2, grades.getHits());
+        assertEquals(4, grades.getMisses());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM grade", Integer.class));
+    }
+
+    private static Teacher teacher(String subject) {
+        Teacher teacher = new Teacher();
+        teacher.setSubject(subject);
+        return teacher;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.batch.demo.writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.batch.demo.feed.FeedDefinition;
+import com.example.batch.demo.feed.FeedRegistry;
+import com.example.batch.demo.file.FileLifecycleManager;
+import com.example.batch.demo.file.QuarantineLog;
+import com.example.batch.demo.model.Student;
+
+class StagingMergeTests {
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("schema.sql")
+            .build();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(
+            new DataSourceTransactionManager(database));
+    @SuppressWarnings("unchecked")
+    private final FeedDefinition<Student> feed = (FeedDefinition<Student>) new FeedRegistry(new MockEnvironment())
+            .get("student");
+
+    @AfterEach
+    void shutdown() {
+        StepSynchronizationManager.close();
+        database.shutdown();
+    }
+
+    @Test
+    void mergesTheFileIntoTheTableAndEmptiesItsStaging() throws Exception {
+        ExecutionContext partition = stage("file:/in/students_1.xml", student(1, "Student 1", 18),
+                student(2, "Student 2", 19));
+        // Left behind by an earlier version of the file
+        jdbcTemplate.update("INSERT INTO student_staging (id, name, age, batch_file, batch_file_version) "
+                + "VALUES (99, 'Old', 20, 'file:/in/students_1.xml', '1:1')");
+
+        merge(List.of("name", "age"), null).complete(partition);
+
+        assertEquals(List.of("Student 1", "Student 2"),
+                jdbcTemplate.queryForList("SELECT name FROM student ORDER BY id", String.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_staging", Integer.class));
+    }
+
+    @Test
+    void failedMergeKeepsTheStagedRowsForTheRetry() throws Exception {
+        // Takes the id of the first staged row
+        jdbcTemplate.update("INSERT INTO student (id, name, age, grade) VALUES (1, 'Student 0', 17, 'C')");
+        ExecutionContext partition = stage("file:/in/students_2.xml", student(1, "Student 1", 18),
+                student(2, "Student 2", 19));
+        StagingMerge merge = merge(null, null);
+
+        assertThrows(DataIntegrityViolationException.class, () -> merge.complete(partition));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_staging", Integer.class));
+
+        jdbcTemplate.update("DELETE FROM student WHERE id = 1");
+        merge.complete(partition);
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_staging", Integer.class));
+    }
+
+    @Test
+    void mergesAKeyStagedTwiceOnceAndIndexesItAfterTheCommit() throws Exception {
+        NaturalKeyIndex keyIndex = new NaturalKeyIndex(jdbcTemplate, feed.getTable(), List.of("name", "age"), 100);
+        // Two byte ranges of the file staging the same record
+        stage("file:/in/students_3.xml", student(1, "Student 1", 18), student(2, "Student 2", 19));
+        StepSynchronizationManager.close();
+        ExecutionContext partition = stage("file:/in/students_3.xml", student(3, "Student 1", 18));
+        StagingMerge merge = merge(List.of("name", "age"), keyIndex);
+        String key = NaturalKeyIndex.key(List.of("Student 1", 18));
+        assertFalse(keyIndex.contains(key));
+
+        merge.complete(partition);
+
+        assertEquals(List.of(1L, 2L), jdbcTemplate.queryForList("SELECT id FROM student ORDER BY id", Long.class));
+        assertTrue(keyIndex.contains(key));
+        assertTrue(keyIndex.contains(NaturalKeyIndex.key(List.of("Student 2", 19))));
+    }
+
+    @Test
+    void rowsTheTableRejectsAreQuarantinedAndTheRestMerges() throws Exception {
+        ExecutionContext partition = stage("file:/in/students_4.xml", student(1, "Student 1", 18),
+                student(2, null, 19), student(3, "Student 3", 20), student(4, "Student 4", 21));
+        QuarantineLog quarantineLog = mock(QuarantineLog.class);
+        StagingMerge merge = merge(null, null);
+        merge.setQuarantine(quarantineLog, row -> QuarantineLog.fragment(feed.getFragmentRootElementName(),
+                feed.getFieldMappers().keySet(), row::get), 10);
+
+        merge.complete(partition);
+
+        assertEquals(List.of(1L, 3L, 4L), jdbcTemplate.queryForList("SELECT id FROM student ORDER BY id", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_staging", Integer.class));
+        verify(quarantineLog).reject(eq("file:/in/students_4.xml"), contains("not merged"),
+                eq("<student><age>19</age></student>"));
+    }
+
+    private ExecutionContext stage(String fileName, Student... students) throws Exception {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        ExecutionContext partition = stepExecution.getExecutionContext();
+        partition.putString(FileLifecycleManager.FILE_NAME_KEY, fileName);
+        partition.putLong(FileLifecycleManager.FILE_SIZE_KEY, 100);
+        partition.putLong(FileLifecycleManager.FILE_LAST_MODIFIED_KEY, 2);
+        StepSynchronizationManager.register(stepExecution);
+        new StagingItemWriter<>(jdbcTemplate, feed.getStagingTable(), feed.getColumns(), feed.getGetters())
+                .write(List.of(students));
+        return partition;
+    }
+
+    private StagingMerge merge(List<String> keyColumns, NaturalKeyIndex keyIndex) {
+        return new StagingMerge(jdbcTemplate, transactionTemplate, feed.getTable(), feed.getStagingTable(),
+                feed.getColumns(), keyColumns, keyIndex);
+    }
+
+    private static Student student(long id, String name, int age) {
+        Student student = new Student();
+        student.setId(id);
+        student.setName(name);
+        student.setAge(age);
+        return student;
+    }
+}